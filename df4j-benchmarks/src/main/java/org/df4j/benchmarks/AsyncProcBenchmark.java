@@ -0,0 +1,105 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.boundconnector.messagestream.StreamInput;
+import org.df4j.core.boundconnector.primitivestream.LongStreamInput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded costs of the node machinery, with no executor hand-off:
+ * pin accounting in {@code BaseLock.turnOn()/turnOff()}, {@code fire()},
+ * and the {@link StreamInput} queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncProcBenchmark {
+    static final int BATCH = 100;
+
+    StreamInput<Integer> input;
+    LongStreamInput longInput;
+    Counter actor;
+    Integer value = 137;
+
+    @Setup
+    public void setup() {
+        // the owner is never started, so the input is exercised without firing
+        input = new StreamInput<>(new AsyncAction<Void>());
+        longInput = new LongStreamInput(new AsyncAction<Void>());
+        actor = new Counter();
+        actor.start(AsyncProc.directExec);
+    }
+
+    /**
+     * post to an empty input (turns the pin on) and consume (turns it off)
+     */
+    @Benchmark
+    public void streamInputPostPurge() {
+        input.post(value);
+        input.purge();
+    }
+
+    /**
+     * queue and drain a batch; only the first post and the last purge switch the pin
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void streamInputQueued() {
+        for (int k = 0; k < BATCH; k++) {
+            input.post(value);
+        }
+        for (int k = 0; k < BATCH; k++) {
+            input.purge();
+        }
+    }
+
+    /**
+     * same as {@link #streamInputQueued}, without boxing
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void longStreamInputQueued() {
+        for (int k = 0; k < BATCH; k++) {
+            longInput.post(k);
+        }
+        for (int k = 0; k < BATCH; k++) {
+            longInput.purge();
+        }
+    }
+
+    /**
+     * one message through an actor running on the caller's thread
+     */
+    @Benchmark
+    public void actorPostAndFire() {
+        actor.post(value);
+    }
+
+    /**
+     * create a scalar node, pass an argument and run it on the caller's thread
+     */
+    @Benchmark
+    public Object scalarNodeCreateAndFire() throws Exception {
+        AsyncFunction<Integer, Integer> node = new AsyncFunction<>((Integer v) -> v + 1);
+        node.start(AsyncProc.directExec);
+        node.post(value);
+        return node.get();
+    }
+
+    static class Counter extends Actor1<Integer> {
+        long sum;
+
+        @Override
+        protected void runAction(Integer message) {
+            sum += message;
+        }
+    }
+}
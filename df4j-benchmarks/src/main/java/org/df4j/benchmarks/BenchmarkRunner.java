@@ -0,0 +1,32 @@
+package org.df4j.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module with the GC profiler attached,
+ * so that each result is accompanied by the allocation rate per operation
+ * (gc.alloc.rate.norm). Throughput and latency percentiles come from
+ * the benchmark modes declared on each benchmark class.
+ *
+ * Usage:
+ * <pre>
+ *     mvn -pl df4j-core,df4j-benchmarks -am package -DskipTests
+ *     java -jar df4j-benchmarks/target/benchmarks.jar [JMH options] [benchmark regexp]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
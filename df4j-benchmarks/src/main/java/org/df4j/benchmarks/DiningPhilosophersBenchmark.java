@@ -0,0 +1,126 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.simplenode.messagestream.PickPoint;
+import org.df4j.core.tasknode.AsyncAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scenario of the DiningPhilosophers test from df4j-core,
+ * with thinking and eating done instantly instead of via timer,
+ * so that the result reflects the cost of coordination only.
+ * One operation is one meal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiningPhilosophersBenchmark {
+    static final int NUM = 5;
+    static final int ROUNDS = 100;
+
+    @Benchmark
+    @OperationsPerInvocation(NUM * ROUNDS)
+    public void dinner() throws InterruptedException {
+        new Dinner().run();
+    }
+
+    enum State {Thinking, Hungry1, Hungry2, Eating, Replete}
+
+    static class Fork {
+    }
+
+    static class Dinner {
+        PickPoint<Fork>[] forkPlaces = new PickPoint[NUM];
+        CountDownLatch counter = new CountDownLatch(NUM);
+
+        void run() throws InterruptedException {
+            for (int k = 0; k < NUM; k++) {
+                forkPlaces[k] = new PickPoint<>();
+                forkPlaces[k].post(new Fork());
+            }
+            Philosopher[] philosophers = new Philosopher[NUM];
+            for (int k = 0; k < NUM; k++) {
+                philosophers[k] = new Philosopher(k);
+            }
+            for (int k = 0; k < NUM; k++) {
+                philosophers[k].startThinking();
+            }
+            counter.await();
+        }
+
+        class Philosopher extends AsyncAction<Void> {
+            State state;
+            PickPoint<Fork> firstPlace, secondPlace;
+            Fork first, second;
+            int rounds = 0;
+
+            Philosopher(int id) {
+                // to avoid deadlocks, allocate resource with lower number first
+                if (id == NUM - 1) {
+                    firstPlace = forkPlaces[0];
+                    secondPlace = forkPlaces[id];
+                } else {
+                    firstPlace = forkPlaces[id];
+                    secondPlace = forkPlaces[id + 1];
+                }
+            }
+
+            void startThinking() {
+                state = State.Thinking;
+                start();
+            }
+
+            void post1(Fork fork) {
+                first = fork;
+                state = State.Hungry2;
+                start();
+            }
+
+            void post2(Fork fork) {
+                second = fork;
+                state = State.Eating;
+                start();
+            }
+
+            @Override
+            public void runAction() {
+                switch (state) {
+                    case Thinking:
+                        state = State.Hungry1;
+                        start();
+                        return;
+                    case Hungry1:
+                        firstPlace.subscribe(this::post1);
+                        return;
+                    case Hungry2:
+                        secondPlace.subscribe(this::post2);
+                        return;
+                    case Eating:
+                        state = State.Replete;
+                        start();
+                        return;
+                    case Replete:
+                        firstPlace.post(first);
+                        first = null;
+                        secondPlace.post(second);
+                        second = null;
+                        rounds++;
+                        if (rounds < ROUNDS) {
+                            startThinking();
+                        } else {
+                            counter.countDown();
+                            stop();
+                        }
+                        return;
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+        }
+    }
+}
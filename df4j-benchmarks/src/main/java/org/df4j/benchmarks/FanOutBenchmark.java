@@ -0,0 +1,88 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.boundconnector.messagestream.MulticastStreamOutput;
+import org.df4j.core.boundconnector.reactivestream.ReactiveMulticastOutput;
+import org.df4j.core.boundconnector.reactivestream.ReactiveRingMulticastOutput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcast of a single value from an output connector to many subscribers.
+ * Subscribers are passive, so the result reflects the cost of the connector itself.
+ * One operation is one {@code post()}, delivered to {@link #subscribers} subscribers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @Param({"1", "16", "256", "1024"})
+    public int subscribers;
+
+    MulticastStreamOutput<Integer> multicastOutput;
+    ReactiveMulticastOutput<Integer> reactiveOutput;
+    ReactiveRingMulticastOutput<Integer> ringOutput;
+    Integer value = 137;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        AsyncAction<Void> owner = new AsyncAction<>();
+        multicastOutput = new MulticastStreamOutput<>(owner);
+        reactiveOutput = new ReactiveMulticastOutput<>(owner);
+        ringOutput = new ReactiveRingMulticastOutput<>(owner);
+        for (int k = 0; k < subscribers; k++) {
+            multicastOutput.subscribe(new Consumer(blackhole));
+            reactiveOutput.subscribe(new Consumer(blackhole));
+            ringOutput.subscribe(new Consumer(blackhole));
+        }
+    }
+
+    @Benchmark
+    public void multicastStreamOutput() {
+        multicastOutput.post(value);
+    }
+
+    @Benchmark
+    public void reactiveMulticastOutput() {
+        reactiveOutput.post(value);
+    }
+
+    @Benchmark
+    public void reactiveRingMulticastOutput() {
+        ringOutput.post(value);
+    }
+
+    static class Consumer implements Subscriber<Integer> {
+        final Blackhole blackhole;
+
+        Consumer(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            blackhole.consume(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
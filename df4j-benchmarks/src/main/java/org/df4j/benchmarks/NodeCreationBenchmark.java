@@ -0,0 +1,68 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.tasknode.Action;
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction;
+import org.df4j.core.util.ActionCaller;
+import org.df4j.core.util.NodePool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate of creation of short-lived nodes whose action is found by the {@link Action} annotation.
+ * {@code findActionUncached} scans the class hierarchy for each node,
+ * as {@link ActionCaller} did before resolved actions were cached per class.
+ * {@code pooledNodeFire} reuses nodes through a {@link NodePool}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeCreationBenchmark {
+    Integer value = 137;
+    NodePool<Increment> pool = new NodePool<>(Increment::new, 16);
+
+    @Benchmark
+    public Object findActionCached() throws Exception {
+        return ActionCaller.findAction(new Increment(), 1);
+    }
+
+    @Benchmark
+    public Object findActionUncached() throws Exception {
+        return ActionCaller.findActionUncached(new Increment(), 1);
+    }
+
+    /**
+     * create an annotated node, pass an argument and run it on the caller's thread
+     */
+    @Benchmark
+    public Object annotatedNodeCreateAndFire() throws Exception {
+        Increment node = new Increment();
+        node.start(AsyncProc.directExec);
+        node.post(value);
+        return node.get();
+    }
+
+    /**
+     * the same, with the node taken from a pool and released after use
+     */
+    @Benchmark
+    public Object pooledNodeFire() throws Exception {
+        Increment node = pool.acquire();
+        node.start(AsyncProc.directExec);
+        node.post(value);
+        Object res = node.get();
+        pool.release(node);
+        return res;
+    }
+
+    static class Increment extends AsyncFunction<Integer, Integer> {
+        @Action
+        protected Integer inc(Integer v) {
+            return v + 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.simplenode.messagescalar.CompletablePromise;
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.df4j.core.util.executor.AffinityExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two {@link Actor1} instances passing a countdown message back and forth.
+ * Each message goes through {@code StreamInput.post()}, pin turn on, {@code fire()},
+ * executor dispatch, {@code runAction()} and {@code purgeAll()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PingPongBenchmark {
+    static final int MESSAGES = 1000;
+
+    /**
+     * affinity: {@link AffinityExecutor} over the common pool, forking onto the worker's local deque
+     */
+    @Param({"commonPool", "currentThread", "affinity"})
+    public String executor;
+
+    Player ping;
+    Player pong;
+
+    @Setup
+    public void setup() {
+        Executor exec;
+        if ("currentThread".equals(executor)) {
+            exec = AsyncProc.currentThreadExec;
+        } else if ("affinity".equals(executor)) {
+            exec = new AffinityExecutor();
+        } else {
+            exec = ForkJoinPool.commonPool();
+        }
+        ping = new Player();
+        pong = new Player();
+        ping.partner = pong;
+        pong.partner = ping;
+        ping.start(exec);
+        pong.start(exec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ping.onComplete();
+        pong.onComplete();
+    }
+
+    private void exchange(int messages) throws Exception {
+        CompletablePromise<Void> done = new CompletablePromise<>();
+        ping.done = done;
+        pong.done = done;
+        ping.post(messages);
+        done.get();
+    }
+
+    /**
+     * throughput, normalized to a single message
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void pingPong() throws Exception {
+        exchange(MESSAGES);
+    }
+
+    /**
+     * latency distribution of a single round trip
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void roundTrip() throws Exception {
+        exchange(2);
+    }
+
+    static class Player extends Actor1<Integer> {
+        volatile Player partner;
+        volatile CompletablePromise<Void> done;
+
+        @Override
+        protected void runAction(Integer count) {
+            if (count == 1) {
+                done.complete();
+            } else {
+                partner.post(count - 1);
+            }
+        }
+    }
+}
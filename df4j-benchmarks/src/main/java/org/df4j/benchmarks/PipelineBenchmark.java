@@ -0,0 +1,98 @@
+package org.df4j.benchmarks;
+
+import org.df4j.core.simplenode.messagescalar.CompletablePromise;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.df4j.core.tasknode.messagestream.StreamProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A chain of {@link StreamProcessor}s connected through their
+ * {@link org.df4j.core.boundconnector.messagestream.MulticastStreamOutput}s,
+ * terminated by a counting sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+    static final int MESSAGES = 1000;
+
+    @Param({"1", "4", "16"})
+    public int stages;
+
+    /**
+     * see {@link org.df4j.core.tasknode.messagestream.Actor#setThroughput(int)}
+     */
+    @Param({"1", "64"})
+    public int throughput;
+
+    Increment first;
+    Sink sink;
+
+    @Setup
+    public void setup() {
+        first = new Increment();
+        first.setThroughput(throughput);
+        first.start();
+        Increment last = first;
+        for (int k = 1; k < stages; k++) {
+            Increment next = new Increment();
+            next.setThroughput(throughput);
+            next.start();
+            last.subscribe(next);
+            last = next;
+        }
+        sink = new Sink();
+        sink.setThroughput(throughput);
+        sink.start();
+        last.subscribe(sink);
+    }
+
+    @TearDown
+    public void tearDown() {
+        first.onComplete();
+    }
+
+    /**
+     * result normalized to a single message passing all the stages
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void pipeline() throws Exception {
+        CompletablePromise<Void> done = new CompletablePromise<>();
+        sink.expect(MESSAGES, done);
+        for (int k = 0; k < MESSAGES; k++) {
+            first.post(k);
+        }
+        done.get();
+    }
+
+    static class Increment extends StreamProcessor<Integer, Integer> {
+        @Override
+        protected Integer process(Integer message) {
+            return message + 1;
+        }
+    }
+
+    static class Sink extends Actor1<Integer> {
+        int remaining;
+        CompletablePromise<Void> done;
+
+        synchronized void expect(int count, CompletablePromise<Void> done) {
+            this.remaining = count;
+            this.done = done;
+        }
+
+        @Override
+        protected synchronized void runAction(Integer message) {
+            remaining--;
+            if (remaining == 0) {
+                done.complete();
+            }
+        }
+    }
+}
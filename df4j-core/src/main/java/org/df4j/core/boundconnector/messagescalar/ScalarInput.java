@@ -17,6 +17,12 @@ public class ScalarInput<T> extends AsyncProc.ConstInput<T> {
         this.task = task;
     }
 
+    @Override
+    protected synchronized void reset() {
+        pushback = false;
+        super.reset();
+    }
+
     // ===================== backend
 
     public boolean hasNext() {
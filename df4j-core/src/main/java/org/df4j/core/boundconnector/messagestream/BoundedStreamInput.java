@@ -0,0 +1,161 @@
+package org.df4j.core.boundconnector.messagestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A queue of tokens with limited capacity, and a strategy to handle overflow.
+ *
+ * The capacity limits the number of tokens waiting behind the current one.
+ * When a token is posted to the full queue, it is handled according to {@link OverflowStrategy},
+ * and the event is counted, so that losses can be monitored.
+ *
+ * @param <T> type of tokens
+ */
+public class BoundedStreamInput<T> extends StreamInput<T> {
+
+    public enum OverflowStrategy {
+        /** the producer waits until the owner consumes a token; must not be used by the owner itself */
+        BLOCK,
+        /** the oldest waiting token is dropped to make room for the new one */
+        DROP_OLDEST,
+        /** the new token is dropped */
+        DROP_NEWEST,
+        /** all waiting tokens are dropped, and only the new one is kept */
+        CONFLATE,
+        /** {@link IllegalStateException} is thrown to the producer */
+        FAIL
+    }
+
+    protected final int capacity;
+    protected final OverflowStrategy strategy;
+    /** number of producers waiting for free space */
+    private int waiting = 0;
+    private long overflowCount = 0;
+    private long droppedCount = 0;
+    private long blockedCount = 0;
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity maximum number of tokens waiting behind the current one
+     * @param strategy what to do with a token posted to the full queue
+     */
+    public BoundedStreamInput(AsyncProc actor, int capacity, OverflowStrategy strategy) {
+        super(actor, capacity);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        if (strategy == null) {
+            throw new NullPointerException();
+        }
+        this.capacity = capacity;
+        this.strategy = strategy;
+    }
+
+    public OverflowStrategy getStrategy() {
+        return strategy;
+    }
+
+    private boolean isFull() {
+        return current != null && queue.size() >= capacity;
+    }
+
+    @Override
+    public synchronized void post(T token) {
+        if (!isFull()) {
+            super.post(token);
+            return;
+        }
+        checkBatch(Collections.singletonList(token));
+        overflowCount++;
+        switch (strategy) {
+            case BLOCK:
+                blockedCount++;
+                waiting++;
+                try {
+                    while (isFull() && !closeRequested && exception == null) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for space", e);
+                } finally {
+                    waiting--;
+                }
+                super.post(token);
+                break;
+            case DROP_OLDEST:
+                queue.poll();
+                droppedCount++;
+                queue.add(token);
+                break;
+            case DROP_NEWEST:
+                droppedCount++;
+                break;
+            case CONFLATE:
+                droppedCount += queue.size();
+                queue.clear();
+                queue.add(token);
+                break;
+            case FAIL:
+                throw new IllegalStateException("no space for next token");
+        }
+    }
+
+    /**
+     * Checks the whole batch first, and then posts the tokens one by one,
+     * applying the overflow strategy to each.
+     */
+    @Override
+    public synchronized void postAll(Collection<? extends T> tokens) {
+        checkBatch(tokens);
+        for (T token: tokens) {
+            post(token);
+        }
+    }
+
+    @Override
+    public synchronized void postAll(T[] tokens, int offset, int length) {
+        postAll(Arrays.asList(tokens).subList(offset, offset + length));
+    }
+
+    @Override
+    public synchronized void purge() {
+        super.purge();
+        if (waiting > 0) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        super.onComplete();
+        if (waiting > 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return number of tokens posted to the full queue
+     */
+    public synchronized long getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * @return number of tokens lost due to DROP_OLDEST, DROP_NEWEST or CONFLATE strategy
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return number of times a producer waited for free space with BLOCK strategy
+     */
+    public synchronized long getBlockedCount() {
+        return blockedCount;
+    }
+}
@@ -0,0 +1,216 @@
+package org.df4j.core.boundconnector.messagestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.util.MpscArrayQueue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+
+/**
+ * A bounded queue of tokens for inputs with many concurrent producers.
+ *
+ * Unlike {@link StreamInput}, producers do not lock the connector:
+ * a token is enqueued with a single CAS, and the pin is touched only
+ * when it is off, that is, on the transition from empty to non-empty queue.
+ * Tokens are consumed by the owning node only.
+ *
+ * When the queue is full, {@link #post} throws {@link IllegalStateException}.
+ *
+ * A producer may turn the pin on after the consumer has already taken its token,
+ * so the owner can occasionally fire with an empty queue; then {@link #current()} returns null
+ * and {@link #isClosed()} returns false, and the owner should just skip the firing.
+ *
+ * A token returned with {@link #pushback(Object)} is kept in a separate slot
+ * and is taken before the queued tokens.
+ *
+ * @param <T> type of tokens
+ */
+public class ConcurrentStreamInput<T> extends StreamInput<T> {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    protected final MpscArrayQueue<T> tokens;
+    /** token returned by the owner with {@link #pushback(Object)}, accessed by the owner only */
+    private T pushedBack;
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity maximum number of queued tokens, rounded up to a power of 2
+     */
+    public ConcurrentStreamInput(AsyncProc actor, int capacity) {
+        super(actor, (Queue<T>) null);
+        this.tokens = new MpscArrayQueue<>(capacity);
+    }
+
+    public ConcurrentStreamInput(AsyncProc actor) {
+        this(actor, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    protected int size() {
+        return tokens.size() + (pushedBack == null ? 0 : 1);
+    }
+
+    @Override
+    public void post(T token) {
+        if (token == null) {
+            throw new NullPointerException();
+        }
+        if (closeRequested) {
+            throw new IllegalStateException("closed already");
+        }
+        if (exception != null) {
+            throw new IllegalStateException("token set already");
+        }
+        if (!tokens.offer(token)) {
+            throw new IllegalStateException("no space for next token");
+        }
+        turnOn();
+    }
+
+    /**
+     * Tokens are enqueued one by one, but the pin is touched once.
+     * If the queue overflows, the tokens enqueued before remain.
+     */
+    @Override
+    public void postAll(Collection<? extends T> tokens) {
+        checkBatch(tokens);
+        int posted = 0;
+        try {
+            for (T token: tokens) {
+                if (!this.tokens.offer(token)) {
+                    throw new IllegalStateException("no space for next token");
+                }
+                posted++;
+            }
+        } finally {
+            if (posted > 0) {
+                turnOn();
+            }
+        }
+    }
+
+    @Override
+    public void postAll(T[] tokens, int offset, int length) {
+        postAll(Arrays.asList(tokens).subList(offset, offset + length));
+    }
+
+    @Override
+    public void onComplete() {
+        if (closeRequested) {
+            return;
+        }
+        closeRequested = true;
+        turnOn();
+    }
+
+    /**
+     * Only the token returned by this method is removed by subsequent {@link #purge()}:
+     * a token which arrived later must not be consumed unseen.
+     */
+    @Override
+    public T current() {
+        if (exception != null) {
+            throw new IllegalStateException(exception);
+        }
+        return current = peek();
+    }
+
+    @Override
+    public T getCurrent() {
+        return current = peek();
+    }
+
+    private T peek() {
+        T res = pushedBack;
+        return res != null ? res : tokens.peek();
+    }
+
+    private boolean isEmpty() {
+        return pushedBack == null && tokens.isEmpty();
+    }
+
+    @Override
+    protected synchronized void reset() {
+        while (tokens.poll() != null) {
+        }
+        pushedBack = null;
+        super.reset();
+    }
+
+    /**
+     * removes the token taken by {@link #current()}, if any
+     *
+     * @return true if a token was removed
+     */
+    private boolean removeCurrent() {
+        if (current == null) {
+            return false;
+        }
+        if (pushedBack != null) {
+            pushedBack = null;
+        } else {
+            tokens.poll();
+        }
+        current = null;
+        return true;
+    }
+
+    /**
+     * Makes the value the next token, ahead of the queue.
+     * The current token is not removed by the following {@link #purge()}, and is taken after the value.
+     * Can be called by the owner only.
+     *
+     * @throws IllegalStateException if a value pushed back before is not yet removed
+     */
+    @Override
+    protected void pushback(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        if (pushedBack != null) {
+            throw new IllegalStateException();
+        }
+        pushedBack = value;
+        pushback = true;
+    }
+
+    @Override
+    public boolean moveNext() {
+        boolean removed = removeCurrent();
+        return current() != null || (closeRequested && removed);
+    }
+
+    @Override
+    public void purge() {
+        if (pushback) {
+            pushback = false;
+            return;
+        }
+        boolean removed = removeCurrent();
+        if (!isEmpty() || (closeRequested && removed)) {
+            return;
+        }
+        turnOff();
+        // a producer could see the pin still on and skip turning it on
+        if (!isEmpty() || (closeRequested && removed)) {
+            turnOn();
+        }
+    }
+
+    @Override
+    public T next() {
+        purge();
+        return current();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !isEmpty();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closeRequested && isEmpty();
+    }
+}
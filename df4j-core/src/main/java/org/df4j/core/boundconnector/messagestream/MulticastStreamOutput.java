@@ -6,18 +6,31 @@ import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 import org.df4j.core.tasknode.AsyncProc;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.Consumer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * each input token it transferred to all subscribers
  *
+ * Subscriptions are kept in a copy-on-write array, replaced with CAS on subscribe and cancel,
+ * so that broadcasting is a loop over an array snapshot, without locks.
+ * Tokens must be posted by one thread at a time, normally the owning actor.
+ *
  * @param <T> type of tokens
  */
 public class MulticastStreamOutput<T> extends AsyncProc.Lock implements Port<T>, Publisher<T> {
+    private static final MulticastStreamOutput<?>.SimpleSubscription[] EMPTY = new MulticastStreamOutput<?>.SimpleSubscription[0];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicReferenceFieldUpdater<MulticastStreamOutput<?>, MulticastStreamOutput<?>.SimpleSubscription[]> subscriptionsUpdater
+            = (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(MulticastStreamOutput.class, MulticastStreamOutput.SimpleSubscription[].class, "subscriptions");
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicReferenceFieldUpdater<MulticastStreamOutput<?>.SimpleSubscription, Subscriber<?>> subscriberUpdater
+            = (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater(MulticastStreamOutput.SimpleSubscription.class, Subscriber.class, "subscriber");
+
     protected AsyncProc actor;
-    protected Set<SimpleSubscription> subscriptions = new HashSet<>();
+    /** null when completed */
+    protected volatile SimpleSubscription[] subscriptions = newSubscriptions(0);
 
     public MulticastStreamOutput(AsyncProc actor, boolean blocked) {
         actor.super(blocked);
@@ -28,8 +41,29 @@ public class MulticastStreamOutput<T> extends AsyncProc.Lock implements Port<T>,
         this(actor, false);
     }
 
+    /**
+     * the only place where arrays of subscriptions are created; copies made with {@link Arrays#copyOf} keep their type
+     */
+    @SuppressWarnings("unchecked")
+    private SimpleSubscription[] newSubscriptions(int length) {
+        return (SimpleSubscription[]) (length == 0 ? EMPTY : new MulticastStreamOutput<?>.SimpleSubscription[length]);
+    }
+
     protected void subscribe(SimpleSubscription newSubscription) {
-        subscriptions.add(newSubscription);
+        for (;;) {
+            SimpleSubscription[] current = subscriptions;
+            if (current == null) {
+                // completed already
+                newSubscription.subscriber.onSubscribe(newSubscription);
+                newSubscription.complete();
+                return;
+            }
+            SimpleSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = newSubscription;
+            if (subscriptionsUpdater.compareAndSet(this, current, updated)) {
+                break;
+            }
+        }
         newSubscription.subscriber.onSubscribe(newSubscription);
     }
 
@@ -39,39 +73,105 @@ public class MulticastStreamOutput<T> extends AsyncProc.Lock implements Port<T>,
         subscribe(newSubscription);
     }
 
-    private void forEachSubscription(Consumer<? super SimpleSubscription> operator) {
-        synchronized (this) {
-            if (subscriptions == null) {
-                return; // completed already
-            }
-        }
-        subscriptions.forEach(operator);
+    /**
+     * @return number of current subscribers, 0 when completed
+     */
+    public int subscriptionCount() {
+        SimpleSubscription[] current = subscriptions;
+        return current == null ? 0 : current.length;
     }
 
     public void post(T item) {
         if (item == null) {
             throw new NullPointerException();
         }
-        forEachSubscription((subscription) -> subscription.post(item));
+        SimpleSubscription[] current = subscriptions;
+        if (current == null) {
+            return; // completed already
+        }
+        for (SimpleSubscription subscription: current) {
+            subscription.post(item);
+        }
+    }
+
+    /**
+     * passes the batch to each subscriber at once; subscribers which are {@link StreamSubscriber}s
+     * receive it through {@link StreamSubscriber#postAll(Collection)}
+     *
+     * @param items tokens to post, in order
+     */
+    public void postAll(Collection<? extends T> items) {
+        for (T item: items) {
+            if (item == null) {
+                throw new NullPointerException();
+            }
+        }
+        SimpleSubscription[] current = subscriptions;
+        if (current == null) {
+            return;
+        }
+        for (SimpleSubscription subscription: current) {
+            subscription.postAll(items);
+        }
+    }
+
+    public void postAll(T[] items, int offset, int length) {
+        postAll(Arrays.asList(items).subList(offset, offset + length));
     }
 
     @Override
     public void postFailure(Throwable throwable) {
-        forEachSubscription((subscription) -> subscription.postFailure(throwable));
+        SimpleSubscription[] current = subscriptions;
+        if (current == null) {
+            return;
+        }
+        for (SimpleSubscription subscription: current) {
+            subscription.postFailure(throwable);
+        }
     }
 
-    public synchronized void complete() {
-        forEachSubscription(SimpleSubscription::complete);
-        subscriptions = null;
+    public void complete() {
+        SimpleSubscription[] current;
+        do {
+            current = subscriptions;
+            if (current == null) {
+                return;
+            }
+        } while (!subscriptionsUpdater.compareAndSet(this, current, null));
+        for (SimpleSubscription subscription: current) {
+            subscription.complete();
+        }
         super.turnOff();
     }
 
-    public synchronized void cancel(SimpleSubscription subscription) {
-        subscriptions.remove(subscription);
+    public void cancel(SimpleSubscription subscription) {
+        for (;;) {
+            SimpleSubscription[] current = subscriptions;
+            if (current == null) {
+                return;
+            }
+            int index = -1;
+            for (int k = 0; k < current.length; k++) {
+                if (current[k] == subscription) {
+                    index = k;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            SimpleSubscription[] updated = newSubscriptions(current.length - 1);
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            if (subscriptionsUpdater.compareAndSet(this, current, updated)) {
+                return;
+            }
+        }
     }
 
     protected class SimpleSubscription implements Subscription, Port<T> {
-        protected Subscriber<? super T> subscriber;
+        /** null when completed or cancelled */
+        protected volatile Subscriber<? super T> subscriber;
 
         public SimpleSubscription() {
         }
@@ -80,25 +180,49 @@ public class MulticastStreamOutput<T> extends AsyncProc.Lock implements Port<T>,
             this.subscriber = subscriber;
         }
 
-        public synchronized void post(T message) {
-            subscriber.onNext(message);
+        public void post(T message) {
+            Subscriber<? super T> subscriber = this.subscriber;
+            if (subscriber != null) {
+                subscriber.onNext(message);
+            }
         }
 
-        public synchronized void postFailure(Throwable throwable) {
+        @SuppressWarnings("unchecked")
+        public void postAll(Collection<? extends T> messages) {
+            Subscriber<? super T> subscriber = this.subscriber;
+            if (subscriber == null) {
+                return;
+            }
+            if (subscriber instanceof StreamSubscriber) {
+                ((StreamSubscriber<? super T>) subscriber).postAll(messages);
+                return;
+            }
+            for (T message: messages) {
+                subscriber.onNext(message);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public void postFailure(Throwable throwable) {
+            Subscriber<? super T> subscriber = (Subscriber<? super T>) subscriberUpdater.getAndSet(this, null);
+            if (subscriber == null) {
+                return;
+            }
+            MulticastStreamOutput.this.cancel(this);
             subscriber.onError(throwable);
-            cancel();
         }
 
         /**
          * subscription closed by request of publisher
          * unregistering not needed
          */
-        public synchronized void complete() {
+        @SuppressWarnings("unchecked")
+        public void complete() {
+            Subscriber<? super T> subscriber = (Subscriber<? super T>) subscriberUpdater.getAndSet(this, null);
             if (subscriber == null) {
                 return;
             }
             subscriber.onComplete();
-            subscriber = null;
         }
 
         @Override
@@ -107,12 +231,11 @@ public class MulticastStreamOutput<T> extends AsyncProc.Lock implements Port<T>,
         /**
          * subscription closed by request of subscriber
          */
-        public synchronized void cancel() {
-            if (subscriber == null) {
+        public void cancel() {
+            if (subscriberUpdater.getAndSet(this, null) == null) {
                 return;
             }
             MulticastStreamOutput.this.cancel(this);
-            subscriber = null;
         }
     }
 
@@ -4,6 +4,8 @@ import org.df4j.core.boundconnector.messagescalar.ScalarInput;
 import org.df4j.core.tasknode.AsyncProc;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Queue;
 
 /**
@@ -13,7 +15,7 @@ import java.util.Queue;
  */
 public class StreamInput<T> extends ScalarInput<T> implements StreamSubscriber<T> {
     protected Queue<T> queue;
-    protected boolean closeRequested = false;
+    protected volatile boolean closeRequested = false;
 
     public StreamInput(AsyncProc actor) {
         super(actor);
@@ -53,6 +55,56 @@ public class StreamInput<T> extends ScalarInput<T> implements StreamSubscriber<T
         }
     }
 
+    /**
+     * Enqueues all the tokens under a single lock, and turns the pin on at most once.
+     */
+    @Override
+    public synchronized void postAll(Collection<? extends T> tokens) {
+        checkBatch(tokens);
+        for (T token: tokens) {
+            enqueue(token);
+        }
+        if (current != null) {
+            turnOn();
+        }
+    }
+
+    @Override
+    public synchronized void postAll(T[] tokens, int offset, int length) {
+        checkBatch(Arrays.asList(tokens).subList(offset, offset + length));
+        for (int k = offset; k < offset + length; k++) {
+            enqueue(tokens[k]);
+        }
+        if (current != null) {
+            turnOn();
+        }
+    }
+
+    /**
+     * checks the whole batch before posting, so that it is posted either entirely or not at all
+     */
+    protected void checkBatch(Collection<? extends T> tokens) {
+        for (T token: tokens) {
+            if (token == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (closeRequested) {
+            throw new IllegalStateException("closed already");
+        }
+        if (exception != null) {
+            throw new IllegalStateException("token set already");
+        }
+    }
+
+    private void enqueue(T token) {
+        if (current == null) {
+            current = token;
+        } else {
+            queue.add(token);
+        }
+    }
+
     /**
      * Signals the end of the stream. Turns this pin on. Removed value is
      * null (null cannot be send with Subscriber.add(message)).
@@ -68,6 +120,15 @@ public class StreamInput<T> extends ScalarInput<T> implements StreamSubscriber<T
         }
     }
 
+    @Override
+    protected synchronized void reset() {
+        if (queue != null) {
+            queue.clear();
+        }
+        closeRequested = false;
+        super.reset();
+    }
+
     /**
      * in order to reuse same token in subsequent async call
      */
@@ -4,6 +4,8 @@ import org.df4j.core.boundconnector.messagescalar.ScalarSubscriber;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import java.util.Collection;
+
 public interface StreamSubscriber<T> extends ScalarSubscriber<T>, Subscriber<T> {
 
     @Override
@@ -19,6 +21,30 @@ public interface StreamSubscriber<T> extends ScalarSubscriber<T>, Subscriber<T>
         postFailure(t);
     }
 
+    /**
+     * posts a batch of tokens; implementations may do it with less synchronization than posting one by one
+     *
+     * @param tokens tokens to post, in order
+     */
+    default void postAll(Collection<? extends T> tokens) {
+        for (T token: tokens) {
+            post(token);
+        }
+    }
+
+    /**
+     * posts a batch of tokens
+     *
+     * @param tokens array of tokens
+     * @param offset index of the first token to post
+     * @param length number of tokens to post
+     */
+    default void postAll(T[] tokens, int offset, int length) {
+        for (int k = offset; k < offset + length; k++) {
+            post(tokens[k]);
+        }
+    }
+
     /** closes the message stream */
     void onComplete();
 }
@@ -6,6 +6,8 @@ import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -55,6 +57,25 @@ public class UnicastStreamOutput<T> extends AsyncProc.Lock implements Port<T>, P
         forEachSubscription((subscription) -> subscription.post(item));
     }
 
+    /**
+     * passes the batch to each subscriber at once; subscribers which are {@link StreamSubscriber}s
+     * receive it through {@link StreamSubscriber#postAll(Collection)}
+     *
+     * @param items tokens to post, in order
+     */
+    public void postAll(Collection<? extends T> items) {
+        for (T item: items) {
+            if (item == null) {
+                throw new NullPointerException();
+            }
+        }
+        forEachSubscription((subscription) -> subscription.postAll(items));
+    }
+
+    public void postAll(T[] items, int offset, int length) {
+        postAll(Arrays.asList(items).subList(offset, offset + length));
+    }
+
     @Override
     public void postFailure(Throwable throwable) {
         forEachSubscription((subscription) -> subscription.postFailure(throwable));
@@ -84,6 +105,17 @@ public class UnicastStreamOutput<T> extends AsyncProc.Lock implements Port<T>, P
             subscriber.onNext(message);
         }
 
+        @SuppressWarnings("unchecked")
+        public synchronized void postAll(Collection<? extends T> messages) {
+            if (subscriber instanceof StreamSubscriber) {
+                ((StreamSubscriber<? super T>) subscriber).postAll(messages);
+                return;
+            }
+            for (T message: messages) {
+                subscriber.onNext(message);
+            }
+        }
+
         public synchronized void postFailure(Throwable throwable) {
             subscriber.onError(throwable);
             cancel();
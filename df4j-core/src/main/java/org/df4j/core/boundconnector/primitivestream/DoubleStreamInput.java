@@ -0,0 +1,43 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of {@code double} tokens, kept in a growing ring buffer.
+ */
+public class DoubleStreamInput extends PrimitiveStreamInput<double[]> implements DoubleStreamSubscriber {
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity initial capacity, rounded up to a power of 2; the buffer grows as needed
+     */
+    public DoubleStreamInput(AsyncProc actor, int capacity) {
+        super(actor, capacity);
+    }
+
+    public DoubleStreamInput(AsyncProc actor) {
+        this(actor, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    protected double[] newBuffer(int capacity) {
+        return new double[capacity];
+    }
+
+    @Override
+    public synchronized void post(double token) {
+        int index = tail(); // may replace the buffer
+        buffer[index] = token;
+        added();
+    }
+
+    /**
+     * @return the current token
+     * @throws NoSuchElementException if the stream is closed and all tokens are consumed
+     */
+    public synchronized double current() {
+        return buffer[head()];
+    }
+}
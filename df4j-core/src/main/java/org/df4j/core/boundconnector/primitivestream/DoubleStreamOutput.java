@@ -0,0 +1,17 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * Passes each {@code double} token to all subscribers, without boxing.
+ */
+public class DoubleStreamOutput extends PrimitiveStreamOutput<DoubleStreamSubscriber> {
+
+    public DoubleStreamOutput() {
+        super(new DoubleStreamSubscriber[0]);
+    }
+
+    public void post(double token) {
+        for (DoubleStreamSubscriber subscriber: subscribers) {
+            subscriber.post(token);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * inlet for a stream of {@code double} values, passed without boxing
+ */
+public interface DoubleStreamSubscriber extends PrimitiveStreamSubscriber {
+
+    void post(double value);
+}
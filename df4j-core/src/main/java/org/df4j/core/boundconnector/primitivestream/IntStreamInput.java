@@ -0,0 +1,43 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of {@code int} tokens, kept in a growing ring buffer.
+ */
+public class IntStreamInput extends PrimitiveStreamInput<int[]> implements IntStreamSubscriber {
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity initial capacity, rounded up to a power of 2; the buffer grows as needed
+     */
+    public IntStreamInput(AsyncProc actor, int capacity) {
+        super(actor, capacity);
+    }
+
+    public IntStreamInput(AsyncProc actor) {
+        this(actor, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    protected int[] newBuffer(int capacity) {
+        return new int[capacity];
+    }
+
+    @Override
+    public synchronized void post(int token) {
+        int index = tail(); // may replace the buffer
+        buffer[index] = token;
+        added();
+    }
+
+    /**
+     * @return the current token
+     * @throws NoSuchElementException if the stream is closed and all tokens are consumed
+     */
+    public synchronized int current() {
+        return buffer[head()];
+    }
+}
@@ -0,0 +1,17 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * Passes each {@code int} token to all subscribers, without boxing.
+ */
+public class IntStreamOutput extends PrimitiveStreamOutput<IntStreamSubscriber> {
+
+    public IntStreamOutput() {
+        super(new IntStreamSubscriber[0]);
+    }
+
+    public void post(int token) {
+        for (IntStreamSubscriber subscriber: subscribers) {
+            subscriber.post(token);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * inlet for a stream of {@code int} values, passed without boxing
+ */
+public interface IntStreamSubscriber extends PrimitiveStreamSubscriber {
+
+    void post(int value);
+}
@@ -0,0 +1,43 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of {@code long} tokens, kept in a growing ring buffer.
+ */
+public class LongStreamInput extends PrimitiveStreamInput<long[]> implements LongStreamSubscriber {
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity initial capacity, rounded up to a power of 2; the buffer grows as needed
+     */
+    public LongStreamInput(AsyncProc actor, int capacity) {
+        super(actor, capacity);
+    }
+
+    public LongStreamInput(AsyncProc actor) {
+        this(actor, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    protected long[] newBuffer(int capacity) {
+        return new long[capacity];
+    }
+
+    @Override
+    public synchronized void post(long token) {
+        int index = tail(); // may replace the buffer
+        buffer[index] = token;
+        added();
+    }
+
+    /**
+     * @return the current token
+     * @throws NoSuchElementException if the stream is closed and all tokens are consumed
+     */
+    public synchronized long current() {
+        return buffer[head()];
+    }
+}
@@ -0,0 +1,17 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * Passes each {@code long} token to all subscribers, without boxing.
+ */
+public class LongStreamOutput extends PrimitiveStreamOutput<LongStreamSubscriber> {
+
+    public LongStreamOutput() {
+        super(new LongStreamSubscriber[0]);
+    }
+
+    public void post(long token) {
+        for (LongStreamSubscriber subscriber: subscribers) {
+            subscriber.post(token);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * inlet for a stream of {@code long} values, passed without boxing
+ */
+public interface LongStreamSubscriber extends PrimitiveStreamSubscriber {
+
+    void post(long value);
+}
@@ -0,0 +1,142 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A queue of primitive tokens, kept in a growing ring buffer, so that posting
+ * and consuming tokens neither boxes nor allocates.
+ * This class manages the indexes and the end of the stream; subclasses read and write the buffer.
+ * The pin is on while a token is available, or the end of the stream is not yet consumed.
+ *
+ * @param <A> type of the buffer, an array of primitives
+ */
+public abstract class PrimitiveStreamInput<A> extends AsyncProc.Lock implements PrimitiveStreamSubscriber {
+    public static final int DEFAULT_CAPACITY = 16;
+
+    protected A buffer;
+    /** length of the buffer, a power of 2 */
+    private int capacity;
+    /** index of the current token */
+    private int head = 0;
+    private int size = 0;
+    private boolean closeRequested = false;
+    private Throwable exception;
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity initial capacity, rounded up to a power of 2; the buffer grows as needed
+     */
+    protected PrimitiveStreamInput(AsyncProc actor, int capacity) {
+        actor.super();
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = newBuffer(this.capacity);
+    }
+
+    protected abstract A newBuffer(int capacity);
+
+    /**
+     * to be called by the post method, under the lock of this connector,
+     * before writing the token and calling {@link #added()}
+     *
+     * @return index in the buffer to write the new token to
+     */
+    protected int tail() {
+        if (closeRequested) {
+            throw new IllegalStateException("closed already");
+        }
+        if (size == capacity) {
+            grow();
+        }
+        return (head + size) & (capacity - 1);
+    }
+
+    /**
+     * to be called by the post method, after the token is written
+     */
+    protected void added() {
+        size++;
+        if (size == 1) {
+            turnOn();
+        }
+    }
+
+    private void grow() {
+        A newBuffer = newBuffer(capacity * 2);
+        int firstPart = capacity - head;
+        System.arraycopy(buffer, head, newBuffer, 0, firstPart);
+        System.arraycopy(buffer, 0, newBuffer, firstPart, head);
+        buffer = newBuffer;
+        capacity *= 2;
+        head = 0;
+    }
+
+    /**
+     * @return index of the current token in the buffer
+     * @throws NoSuchElementException if the stream is closed and all tokens are consumed
+     */
+    protected int head() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return head;
+    }
+
+    @Override
+    public synchronized void postFailure(Throwable ex) {
+        if (closeRequested) {
+            throw new IllegalStateException("closed already");
+        }
+        exception = ex;
+        onComplete();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        if (closeRequested) {
+            return;
+        }
+        closeRequested = true;
+        if (size == 0) {
+            turnOn();
+        }
+    }
+
+    public synchronized boolean hasNext() {
+        return size > 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the stream is closed and all tokens are consumed
+     */
+    public synchronized boolean isClosed() {
+        return closeRequested && size == 0;
+    }
+
+    /**
+     * @return the exception the stream was closed with, or null
+     */
+    public synchronized Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public synchronized void purge() {
+        if (size > 0) {
+            head = (head + 1) & (capacity - 1);
+            size--;
+            if (size > 0 || closeRequested) {
+                return;
+            }
+        }
+        turnOff();
+    }
+}
@@ -0,0 +1,68 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the subscribers of a primitive stream output.
+ * The array of subscribers is replaced on each subscription change, so posting takes no lock.
+ * Posting never blocks, so this output adds no pin to its actor.
+ *
+ * @param <S> type of subscribers
+ */
+public abstract class PrimitiveStreamOutput<S extends PrimitiveStreamSubscriber> {
+    private final S[] empty;
+
+    /** read by {@code post} methods of subclasses */
+    protected volatile S[] subscribers;
+    private boolean completed = false;
+
+    /**
+     * @param empty empty array, used as the initial subscriber list and to create arrays of the same type
+     */
+    protected PrimitiveStreamOutput(S[] empty) {
+        this.empty = empty;
+        this.subscribers = empty;
+    }
+
+    public synchronized void subscribe(S subscriber) {
+        if (completed) {
+            subscriber.onComplete();
+            return;
+        }
+        S[] current = subscribers;
+        S[] newSubscribers = Arrays.copyOf(current, current.length + 1);
+        newSubscribers[current.length] = subscriber;
+        subscribers = newSubscribers;
+    }
+
+    public synchronized void unsubscribe(S subscriber) {
+        S[] current = subscribers;
+        for (int k = 0; k < current.length; k++) {
+            if (current[k] == subscriber) {
+                S[] newSubscribers = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, k + 1, newSubscribers, k, current.length - k - 1);
+                subscribers = newSubscribers;
+                return;
+            }
+        }
+    }
+
+    public void postFailure(Throwable ex) {
+        for (S subscriber: close()) {
+            subscriber.postFailure(ex);
+        }
+    }
+
+    public void complete() {
+        for (S subscriber: close()) {
+            subscriber.onComplete();
+        }
+    }
+
+    private synchronized S[] close() {
+        S[] current = subscribers;
+        subscribers = empty;
+        completed = true;
+        return current;
+    }
+}
@@ -0,0 +1,17 @@
+package org.df4j.core.boundconnector.primitivestream;
+
+/**
+ * methods common to the inlets of primitive streams; posting a value is declared in each typed subinterface
+ */
+public interface PrimitiveStreamSubscriber {
+
+    /**
+     * closes the stream with failure
+     *
+     * @param ex the exception
+     */
+    void postFailure(Throwable ex);
+
+    /** closes the stream */
+    void onComplete();
+}
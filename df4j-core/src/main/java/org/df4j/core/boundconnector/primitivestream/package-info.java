@@ -0,0 +1,6 @@
+/**
+ * Stream connectors specialized for {@code int}, {@code long} and {@code double} values.
+ * Tokens are kept in primitive ring buffers and passed to typed methods, so that
+ * the data path neither boxes nor allocates.
+ */
+package org.df4j.core.boundconnector.primitivestream;
@@ -0,0 +1,352 @@
+package org.df4j.core.boundconnector.reactivestream;
+
+import org.df4j.core.boundconnector.Port;
+import org.df4j.core.tasknode.AsyncProc;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * distributes tokens among multiple subscribers, e.g. a pool of workers processing a single stream
+ *
+ * Each token is routed to one subscriber, chosen by the {@link Policy}.
+ * Like {@link ReactiveUnicastOutput}, the pin is on only when the token can be delivered
+ * within the subscribers' demand.
+ * Tokens are posted by one thread at a time, normally the owning actor.
+ *
+ * @param <T> the type of distributed values
+ */
+public class ReactiveBalancedOutput<T> extends AsyncProc.Lock implements Port<T>, Publisher<T> {
+
+    public enum Policy {
+        /** subscribers with demand take tokens in turn */
+        ROUND_ROBIN,
+        /** the subscriber with the largest unsatisfied demand, that is, the least busy one, takes the token */
+        LEAST_LOADED,
+        /**
+         * tokens with equal keys go to the same subscriber, and only the keys of a leaving subscriber are remapped.
+         * Since the target is not known in advance, the pin is on only when all subscribers have demand.
+         */
+        CONSISTENT_HASH
+    }
+
+    public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    protected final Policy policy;
+    protected final Function<? super T, ?> keyExtractor;
+    protected final int virtualNodes;
+    protected final ArrayList<BalancedSubscription> subscriptions = new ArrayList<>();
+    /** hash ring for CONSISTENT_HASH policy, with virtualNodes points per subscriber */
+    protected final TreeMap<Integer, BalancedSubscription> ring = new TreeMap<>();
+    /** number of subscriptions with demand */
+    private int active = 0;
+    /** where the search for the next subscriber starts */
+    private int nextIndex = 0;
+    private int lastId = 0;
+    private boolean completed = false;
+
+    private ReactiveBalancedOutput(AsyncProc actor, Policy policy, Function<? super T, ?> keyExtractor, int virtualNodes) {
+        actor.super(true);
+        this.policy = policy;
+        this.keyExtractor = keyExtractor;
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * @param actor owner of this connector
+     * @param policy ROUND_ROBIN or LEAST_LOADED
+     */
+    public ReactiveBalancedOutput(AsyncProc actor, Policy policy) {
+        this(actor, policy, null, 0);
+        if (policy == Policy.CONSISTENT_HASH) {
+            throw new IllegalArgumentException("CONSISTENT_HASH policy requires a key extractor");
+        }
+    }
+
+    public ReactiveBalancedOutput(AsyncProc actor) {
+        this(actor, Policy.ROUND_ROBIN);
+    }
+
+    /**
+     * creates a connector with CONSISTENT_HASH policy
+     *
+     * @param actor owner of this connector
+     * @param keyExtractor computes the routing key of a token
+     * @param virtualNodes number of points per subscriber on the hash ring
+     */
+    public ReactiveBalancedOutput(AsyncProc actor, Function<? super T, ?> keyExtractor, int virtualNodes) {
+        this(actor, Policy.CONSISTENT_HASH, keyExtractor, virtualNodes);
+        if (keyExtractor == null) {
+            throw new NullPointerException();
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be > 0");
+        }
+    }
+
+    public ReactiveBalancedOutput(AsyncProc actor, Function<? super T, ?> keyExtractor) {
+        this(actor, keyExtractor, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        BalancedSubscription subscription;
+        boolean wasCompleted;
+        synchronized (this) {
+            subscription = new BalancedSubscription(subscriber, ++lastId);
+            wasCompleted = completed;
+            if (!completed) {
+                subscriptions.add(subscription);
+                if (policy == Policy.CONSISTENT_HASH) {
+                    for (int v = 0; v < virtualNodes; v++) {
+                        ring.putIfAbsent(mix(subscription.id * 0x9E3779B9 + v), subscription);
+                    }
+                }
+                updatePin();
+            }
+        }
+        subscriber.onSubscribe(subscription);
+        if (wasCompleted) {
+            subscription.terminate(null);
+        }
+    }
+
+    protected synchronized void cancel(BalancedSubscription subscription) {
+        int index = subscriptions.indexOf(subscription);
+        if (index < 0) {
+            return;
+        }
+        subscriptions.remove(index);
+        if (index < nextIndex) {
+            nextIndex--;
+        }
+        if (policy == Policy.CONSISTENT_HASH) {
+            for (int v = 0; v < virtualNodes; v++) {
+                ring.remove(mix(subscription.id * 0x9E3779B9 + v), subscription);
+            }
+        }
+        if (subscription.requested > 0) {
+            active--;
+        }
+        updatePin();
+    }
+
+    private void updatePin() {
+        boolean ready;
+        if (completed) {
+            ready = false;
+        } else if (policy == Policy.CONSISTENT_HASH) {
+            ready = !subscriptions.isEmpty() && active == subscriptions.size();
+        } else {
+            ready = active > 0;
+        }
+        if (ready) {
+            turnOn();
+        } else {
+            turnOff();
+        }
+    }
+
+    /**
+     * @return the subscription to receive the token, or null if it has no demand
+     */
+    private BalancedSubscription select(T item) {
+        int size = subscriptions.size();
+        if (size == 0) {
+            return null;
+        }
+        switch (policy) {
+            case ROUND_ROBIN:
+                for (int k = 0; k < size; k++) {
+                    int index = (nextIndex + k) % size;
+                    BalancedSubscription subscription = subscriptions.get(index);
+                    if (subscription.requested > 0) {
+                        nextIndex = (index + 1) % size;
+                        return subscription;
+                    }
+                }
+                return null;
+            case LEAST_LOADED: {
+                // start from a moving index, so that ties are resolved in turn
+                BalancedSubscription best = null;
+                int bestIndex = 0;
+                for (int k = 0; k < size; k++) {
+                    int index = (nextIndex + k) % size;
+                    BalancedSubscription subscription = subscriptions.get(index);
+                    if (subscription.requested > 0 && (best == null || subscription.requested > best.requested)) {
+                        best = subscription;
+                        bestIndex = index;
+                    }
+                }
+                nextIndex = (bestIndex + 1) % size;
+                return best;
+            }
+            default: {
+                Object key = keyExtractor.apply(item);
+                int hash = mix(key == null ? 0 : key.hashCode());
+                Map.Entry<Integer, BalancedSubscription> entry = ring.ceilingEntry(hash);
+                if (entry == null) {
+                    entry = ring.firstEntry();
+                }
+                BalancedSubscription subscription = entry.getValue();
+                return subscription.requested > 0 ? subscription : null;
+            }
+        }
+    }
+
+    /** spreads bits of hash codes over the ring (the finalizer of MurmurHash3) */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Override
+    public void post(T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        Subscriber<? super T> subscriber;
+        synchronized (this) {
+            if (completed) {
+                throw new IllegalStateException("post to completed connector");
+            }
+            BalancedSubscription subscription = select(item);
+            if (subscription == null) {
+                throw new IllegalStateException("not requested");
+            }
+            if (subscription.requested != Long.MAX_VALUE) {
+                subscription.requested--;
+                if (subscription.requested == 0) {
+                    active--;
+                    updatePin();
+                }
+            }
+            subscriber = subscription.subscriber;
+        }
+        subscriber.onNext(item);
+    }
+
+    /**
+     * the stream is broken, so all subscribers are notified
+     */
+    @Override
+    public void postFailure(Throwable throwable) {
+        if (throwable == null) {
+            throw new IllegalArgumentException();
+        }
+        terminate(throwable);
+    }
+
+    public void complete() {
+        terminate(null);
+    }
+
+    private void terminate(Throwable throwable) {
+        @SuppressWarnings("unchecked")
+        BalancedSubscription[] empty = (BalancedSubscription[]) new ReactiveBalancedOutput<?>.BalancedSubscription[0];
+        BalancedSubscription[] current;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            current = subscriptions.toArray(empty);
+            subscriptions.clear();
+            ring.clear();
+            active = 0;
+            updatePin();
+        }
+        for (BalancedSubscription subscription: current) {
+            subscription.terminate(throwable);
+        }
+    }
+
+    public synchronized boolean completed() {
+        return completed;
+    }
+
+    class BalancedSubscription implements Subscription {
+        final int id;
+        /** null when completed or cancelled */
+        volatile Subscriber<? super T> subscriber;
+        /** unsatisfied demand, guarded by the output */
+        long requested = 0;
+
+        BalancedSubscription(Subscriber<? super T> subscriber, int id) {
+            this.subscriber = subscriber;
+            this.id = id;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                Subscriber<? super T> subscriber = this.subscriber;
+                cancel();
+                if (subscriber != null) {
+                    subscriber.onError(new IllegalArgumentException("request must be positive, was " + n));
+                }
+                return;
+            }
+            synchronized (ReactiveBalancedOutput.this) {
+                if (subscriber == null) {
+                    return;
+                }
+                boolean wasPassive = requested == 0;
+                requested += n;
+                if (requested < 0) {
+                    requested = Long.MAX_VALUE;
+                }
+                if (wasPassive) {
+                    active++;
+                    updatePin();
+                }
+            }
+        }
+
+        /**
+         * subscription closed by request of subscriber
+         */
+        @Override
+        public void cancel() {
+            synchronized (ReactiveBalancedOutput.this) {
+                if (subscriber == null) {
+                    return;
+                }
+                ReactiveBalancedOutput.this.cancel(this);
+                subscriber = null;
+            }
+        }
+
+        /**
+         * subscription closed by request of publisher
+         */
+        void terminate(Throwable throwable) {
+            Subscriber<? super T> subscriber;
+            synchronized (ReactiveBalancedOutput.this) {
+                subscriber = this.subscriber;
+                this.subscriber = null;
+            }
+            if (subscriber == null) {
+                return;
+            }
+            if (throwable == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(throwable);
+            }
+        }
+    }
+}
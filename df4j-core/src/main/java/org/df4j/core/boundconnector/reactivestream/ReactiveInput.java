@@ -5,32 +5,49 @@ import org.df4j.core.tasknode.AsyncProc;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Collection;
 
 /**
  * A Queue of tokens
  *
+ * Requests up to capacity tokens on subscription, and then replenishes the demand
+ * each time requestBatch tokens are consumed, with a single request(requestBatch).
+ * Larger batches mean less calls to the publisher, at the cost of a less smooth flow.
+ *
  * @param <T> the type of tokens
  */
 public class ReactiveInput<T> extends StreamInput<T> implements Subscriber<T> {
-    protected Deque<T> queue;
-    protected boolean closeRequested = false;
     protected final int capacity;
+    /** number of consumed tokens, after which the demand is replenished */
+    protected final int requestBatch;
+    /** demand signalled to the publisher and not yet satisfied */
     protected int requested = 0;
+    /** tokens consumed since the last request */
+    protected int consumed = 0;
 
-    public ReactiveInput(AsyncProc actor, int capacity) {
-        super(actor);
-        this.queue = new ArrayDeque<>(capacity);
+    /**
+     * @param actor owner of this connector
+     * @param capacity maximum number of buffered tokens
+     * @param requestBatch number of consumed tokens to request at once, from 1 to capacity
+     */
+    public ReactiveInput(AsyncProc actor, int capacity, int requestBatch) {
+        super(actor, capacity);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        if (requestBatch <= 0 || requestBatch > capacity) {
+            throw new IllegalArgumentException("requestBatch must be between 1 and capacity");
+        }
         this.capacity = capacity;
+        this.requestBatch = requestBatch;
     }
 
-    public ReactiveInput(AsyncProc actor) {
-        this(actor, 4);
+    public ReactiveInput(AsyncProc actor, int capacity) {
+        this(actor, capacity, 1);
     }
 
-    protected int size() {
-        return queue.size();
+    public ReactiveInput(AsyncProc actor) {
+        this(actor, 4);
     }
 
     protected void makeRequest(int delta) {
@@ -39,7 +56,7 @@ public class ReactiveInput<T> extends StreamInput<T> implements Subscriber<T> {
     }
 
     @Override
-    public void onSubscribe(Subscription subscription) {
+    public synchronized void onSubscribe(Subscription subscription) {
         this.subscription = subscription;
         makeRequest(capacity);
     }
@@ -67,23 +84,44 @@ public class ReactiveInput<T> extends StreamInput<T> implements Subscriber<T> {
     }
 
     @Override
-    public boolean moveNext() {
-        boolean res = super.moveNext();
-        int freeSpace=capacity - super.size();
-        int delta = freeSpace - requested;
-        if (delta > 0) {
-            subscription.request(delta);
+    public synchronized void postAll(Collection<? extends T> tokens) {
+        if (subscription == null) {
+            throw new IllegalStateException("not yet subscribed");
         }
-        return res;
+        if (queue.size() + tokens.size() > capacity) {
+            throw new IllegalStateException("no space for next tokens");
+        }
+        super.postAll(tokens);
+        requested -= tokens.size();
     }
 
     @Override
-    public synchronized T next() {
-        subscription.request(1);
-        return super.next();
+    public synchronized void postAll(T[] tokens, int offset, int length) {
+        if (subscription == null) {
+            throw new IllegalStateException("not yet subscribed");
+        }
+        if (queue.size() + length > capacity) {
+            throw new IllegalStateException("no space for next tokens");
+        }
+        super.postAll(tokens, offset, length);
+        requested -= length;
     }
 
-    public synchronized boolean  isClosed() {
-        return closeRequested && (current == null);
+    /**
+     * counts the consumed token, and requests a batch of tokens when requestBatch of them are consumed
+     */
+    @Override
+    public boolean moveNext() {
+        boolean wasNotNull = (current != null);
+        boolean res = super.moveNext();
+        if (wasNotNull && subscription != null) {
+            consumed++;
+            if (consumed >= requestBatch) {
+                int delta = consumed;
+                consumed = 0;
+                makeRequest(delta);
+            }
+        }
+        return res;
     }
 }
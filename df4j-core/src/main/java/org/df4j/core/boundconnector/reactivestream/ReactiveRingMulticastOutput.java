@@ -0,0 +1,315 @@
+package org.df4j.core.boundconnector.reactivestream;
+
+import org.df4j.core.boundconnector.Port;
+import org.df4j.core.tasknode.AsyncProc;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * serves multiple subscribers from a preallocated ring buffer (after the LMAX Disruptor)
+ *
+ * Each value is written once into the ring, and each subscription keeps its own sequence counter
+ * of the next value to deliver, advanced as its subscriber requests more.
+ * Posting a value allocates nothing, and subscriptions advance independently, without a common lock.
+ *
+ * The pin is on while the ring has room, that is, the slowest subscription lags behind
+ * by less than the ring capacity, so the owner posts at most one value per firing.
+ * Like {@link ReactiveMulticastOutput}, the pin is off while there are no subscribers:
+ * until the first one arrives, and after the last one cancels, when {@link #allCancelled()} is called.
+ * Values are posted by one thread at a time, normally the owning actor.
+ *
+ * @param <T> the type of broadcasted values
+ */
+public class ReactiveRingMulticastOutput<T> extends AsyncProc.Lock implements Port<T>, Publisher<T> {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final ReactiveRingMulticastOutput<?>.RingSubscription[] EMPTY = new ReactiveRingMulticastOutput<?>.RingSubscription[0];
+
+    private final Object[] ring;
+    private final int mask;
+    /** number of values posted; the next value goes to slot (published &amp; mask) */
+    private volatile long published = 0;
+    /** cursor of the slowest subscription, as last computed by the producer */
+    private volatile long minCursor = 0;
+    private volatile RingSubscription[] subscriptions = newSubscriptions(0);
+    private volatile boolean completed = false;
+    private volatile Throwable failure;
+
+    /**
+     * @param actor owner of this connector
+     * @param capacity size of the ring, rounded up to a power of 2
+     */
+    public ReactiveRingMulticastOutput(AsyncProc actor, int capacity) {
+        actor.super(true);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        ring = new Object[size];
+        mask = size - 1;
+    }
+
+    public ReactiveRingMulticastOutput(AsyncProc actor) {
+        this(actor, DEFAULT_CAPACITY);
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    /**
+     * the only place where arrays of subscriptions are created; copies made with {@link Arrays#copyOf} keep their type
+     */
+    @SuppressWarnings("unchecked")
+    private RingSubscription[] newSubscriptions(int length) {
+        return (RingSubscription[]) (length == 0 ? EMPTY : new ReactiveRingMulticastOutput<?>.RingSubscription[length]);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        RingSubscription subscription = new RingSubscription(subscriber);
+        synchronized (this) {
+            subscription.cursor = published;
+            if (!completed) {
+                RingSubscription[] current = subscriptions;
+                RingSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = subscription;
+                subscriptions = updated;
+                updatePin();
+            }
+        }
+        subscriber.onSubscribe(subscription);
+        subscription.drainLoop();
+    }
+
+    protected void cancel(RingSubscription subscription) {
+        boolean last = false;
+        synchronized (this) {
+            RingSubscription[] current = subscriptions;
+            for (int k = 0; k < current.length; k++) {
+                if (current[k] == subscription) {
+                    RingSubscription[] updated = newSubscriptions(current.length - 1);
+                    System.arraycopy(current, 0, updated, 0, k);
+                    System.arraycopy(current, k + 1, updated, k, current.length - k - 1);
+                    subscriptions = updated;
+                    updatePin();
+                    last = updated.length == 0 && !completed;
+                    break;
+                }
+            }
+        }
+        if (last) {
+            allCancelled();
+        }
+    }
+
+    /**
+     * called when the last subscriber cancels before completion;
+     * the owner may stop producing, as the values would be lost
+     */
+    protected void allCancelled() {
+    }
+
+    private long slowestCursor() {
+        long min = published;
+        for (RingSubscription subscription: subscriptions) {
+            min = Math.min(min, subscription.cursor);
+        }
+        return min;
+    }
+
+    /**
+     * sets the pin according to the free space in the ring; all changes of the pin are made here
+     */
+    private synchronized void updatePin() {
+        if (hasRoom()) {
+            turnOn();
+            return;
+        }
+        turnOff();
+        // a subscription could advance meanwhile, and see the pin still on
+        if (hasRoom()) {
+            turnOn();
+        }
+    }
+
+    private boolean hasRoom() {
+        minCursor = slowestCursor();
+        return subscriptions.length > 0 && !completed && published - minCursor < ring.length;
+    }
+
+    @Override
+    public void post(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        if (completed) {
+            throw new IllegalStateException("completed already");
+        }
+        long seq = published;
+        if (seq - minCursor >= ring.length) {
+            minCursor = slowestCursor();
+            if (seq - minCursor >= ring.length) {
+                throw new IllegalStateException("no space for next token");
+            }
+        }
+        ring[(int) seq & mask] = value;
+        published = seq + 1;
+        if (seq + 1 - minCursor >= ring.length) {
+            updatePin();
+        }
+        for (RingSubscription subscription: subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    @Override
+    public void postFailure(Throwable throwable) {
+        if (throwable == null) {
+            throw new IllegalArgumentException();
+        }
+        failure = throwable;
+        complete();
+    }
+
+    public void complete() {
+        synchronized (this) {
+            if (completed) {
+                throw new IllegalStateException("completed already");
+            }
+            completed = true;
+            turnOff();
+        }
+        for (RingSubscription subscription: subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicLongFieldUpdater<ReactiveRingMulticastOutput<?>.RingSubscription> requestedUpdater
+            = (AtomicLongFieldUpdater) AtomicLongFieldUpdater.newUpdater(ReactiveRingMulticastOutput.RingSubscription.class, "requested");
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicIntegerFieldUpdater<ReactiveRingMulticastOutput<?>.RingSubscription> wipUpdater
+            = (AtomicIntegerFieldUpdater) AtomicIntegerFieldUpdater.newUpdater(ReactiveRingMulticastOutput.RingSubscription.class, "wip");
+
+    class RingSubscription implements Subscription {
+        protected final Subscriber<? super T> subscriber;
+        /** sequence number of the next value to deliver */
+        volatile long cursor;
+        /** outstanding demand of the subscriber */
+        volatile long requested = 0;
+        /**
+         * number of drain requests; the thread which increments it from 0 delivers values.
+         * Initially held by the subscribing thread, so that nothing is delivered before onSubscribe.
+         */
+        volatile int wip = 1;
+        private volatile boolean cancelled = false;
+        /** accessed by the draining thread only */
+        private boolean done = false;
+        private volatile Throwable requestError;
+
+        RingSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("request must be positive, was " + n);
+            } else {
+                long current;
+                long updated;
+                do {
+                    current = requested;
+                    updated = current + n;
+                    if (updated < 0) {
+                        updated = Long.MAX_VALUE;
+                    }
+                } while (!requestedUpdater.compareAndSet(this, current, updated));
+            }
+            drain();
+        }
+
+        /**
+         * subscription closed by request of subscriber
+         */
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            ReactiveRingMulticastOutput.this.cancel(this);
+        }
+
+        /**
+         * delivers available values within the demand, and the end of stream.
+         * Only one thread delivers at a time; calls from other threads make it loop once more.
+         */
+        void drain() {
+            if (wipUpdater.getAndIncrement(this) != 0) {
+                return;
+            }
+            drainLoop();
+        }
+
+        /**
+         * called by the thread which has incremented {@link #wip} from 0
+         */
+        void drainLoop() {
+            int missed = 1;
+            do {
+                if (!done && !cancelled) {
+                    if (requestError != null) {
+                        done = true;
+                        cancel();
+                        subscriber.onError(requestError);
+                    } else {
+                        deliver();
+                    }
+                }
+                missed = wipUpdater.addAndGet(this, -missed);
+            } while (missed != 0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver() {
+            // read before published, so that no value is missed before the end of stream
+            boolean isCompleted = completed;
+            long limit = published;
+            long seq = cursor;
+            long demand = requested;
+            long emitted = 0;
+            while (seq < limit && emitted < demand && !cancelled) {
+                T value = (T) ring[(int) seq & mask];
+                seq++;
+                emitted++;
+                cursor = seq;
+                subscriber.onNext(value);
+            }
+            if (emitted > 0) {
+                if (demand != Long.MAX_VALUE) {
+                    requestedUpdater.addAndGet(this, -emitted);
+                }
+                if (isBlocked()) {
+                    updatePin();
+                }
+            }
+            if (isCompleted && seq == limit && !cancelled) {
+                done = true;
+                cancel();
+                Throwable failure = ReactiveRingMulticastOutput.this.failure;
+                if (failure == null) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(failure);
+                }
+            }
+        }
+    }
+}
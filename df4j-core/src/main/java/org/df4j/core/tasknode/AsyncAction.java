@@ -2,9 +2,14 @@ package org.df4j.core.tasknode;
 
 import org.df4j.core.simplenode.messagescalar.CompletablePromise;
 import org.df4j.core.util.ActionCaller;
+import org.df4j.core.util.HashedWheelTimer;
 import org.df4j.core.util.invoker.Invoker;
+import org.reactivestreams.Subscription;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * this class contains components, likely useful in each async task node:
@@ -14,6 +19,14 @@ import java.util.concurrent.Executor;
  *  it can be used as a channel for unexpected errors.
  */
 public class AsyncAction<R> extends AsyncProc {
+    private static final int NO_DEADLINE = 0;
+    private static final int DEADLINE_PENDING = 1;
+    private static final int FIRED = 2;
+    private static final int EXPIRED = 3;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicIntegerFieldUpdater<AsyncAction<?>> deadlineStateUpdater
+            = (AtomicIntegerFieldUpdater) AtomicIntegerFieldUpdater.newUpdater(AsyncAction.class, "deadlineState");
+
     /**
      * blocked initially, until {@link #start} called.
      * blocked when this actor goes to executor, to ensure serial execution of the act() method.
@@ -22,13 +35,24 @@ public class AsyncAction<R> extends AsyncProc {
 
     protected Invoker actionCaller;
 
-    protected final CompletablePromise<R> result = new CompletablePromise<>();
+    /**
+     * replaced on {@link #reset()}
+     */
+    protected volatile CompletablePromise<R> result = new CompletablePromise<>();
 
     /**
      * if true, this action cannot be restarted
      */
     protected volatile boolean stopped = false;
 
+    /**
+     * set by {@link #start()}, cleared by {@link #reset()}
+     */
+    private volatile boolean started = false;
+
+    private volatile int deadlineState = NO_DEADLINE;
+    private volatile Subscription deadlineTimeout;
+
     public AsyncAction() {
     }
 
@@ -48,10 +72,11 @@ public class AsyncAction<R> extends AsyncProc {
         return result;
     }
 
-    public synchronized void start() {
+    public void start() {
         if (stopped) {
             throw new IllegalStateException();
         }
+        started = true;
         controlLock.turnOn();
     }
 
@@ -71,6 +96,98 @@ public class AsyncAction<R> extends AsyncProc {
         }
     }
 
+    /**
+     * Stops this action without completing its result, so that the caller can complete it
+     * after the action is seen as stopped by the waiters of the result.
+     *
+     * @return the result of the stopped run, which is not replaced by a later {@link #reset()}
+     */
+    protected synchronized CompletablePromise<R> markStopped() {
+        stopped = true;
+        return result;
+    }
+
+    /**
+     * Limits the time to wait for the first firing.
+     * If the node is not fired within the delay, its result completes with {@link TimeoutException},
+     * the node is stopped, and the subscriptions of its connectors are cancelled.
+     *
+     * @param delay maximum time to wait
+     * @param unit time unit of the delay
+     * @param timer timer to count the delay
+     */
+    public void setDeadline(long delay, TimeUnit unit, HashedWheelTimer timer) {
+        if (!deadlineStateUpdater.compareAndSet(this, NO_DEADLINE, DEADLINE_PENDING)) {
+            throw new IllegalStateException("deadline set already");
+        }
+        deadlineTimeout = timer.schedule(this::expire, delay, unit);
+    }
+
+    /**
+     * the same, with the timer shared by all the nodes
+     */
+    public void setDeadline(long delay, TimeUnit unit) {
+        setDeadline(delay, unit, DeadlineTimer.timer);
+    }
+
+    private void expire() {
+        if (!deadlineStateUpdater.compareAndSet(this, DEADLINE_PENDING, EXPIRED)) {
+            return;
+        }
+        // stop before completing the result, so that its waiters see the node stopped
+        CompletablePromise<R> result;
+        synchronized (this) {
+            result = markStopped();
+            cancelAll();
+        }
+        result.completeExceptionally(new TimeoutException("not fired within the deadline"));
+    }
+
+    /**
+     * a node with expired deadline is not fired anymore
+     */
+    @Override
+    protected void fire() {
+        int state = deadlineState;
+        if (state == DEADLINE_PENDING || state == EXPIRED) {
+            if (!deadlineStateUpdater.compareAndSet(this, DEADLINE_PENDING, FIRED)) {
+                return;
+            }
+            Subscription timeout = deadlineTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+        super.fire();
+    }
+
+    /**
+     * Makes this action reusable, as if it were just created: all the pins return to the initial state,
+     * connectors drop their tokens, and the result is replaced with a new one.
+     * Connections made by subscribing to other nodes are not restored.
+     * Allowed only when this action was not started or is stopped.
+     */
+    public synchronized void reset() {
+        if (started && !stopped) {
+            throw new IllegalStateException("cannot reset started action");
+        }
+        started = false;
+        stopped = false;
+        result = new CompletablePromise<>();
+        Subscription timeout = deadlineTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+            deadlineTimeout = null;
+        }
+        deadlineState = NO_DEADLINE;
+        resetAll();
+    }
+
+    /** created on first use */
+    private static class DeadlineTimer {
+        static final HashedWheelTimer timer = new HashedWheelTimer();
+    }
+
     public String toString() {
         return super.toString() + result.toString();
     }
@@ -94,8 +211,7 @@ public class AsyncAction<R> extends AsyncProc {
             blockStarted();
             runAction();
         } catch (Throwable e) {
-            result.completeExceptionally(e);
-            stop();
+            markStopped().completeExceptionally(e);
         }
     }
 }
@@ -12,12 +12,14 @@ package org.df4j.core.tasknode;
 import org.reactivestreams.Subscription;
 import org.df4j.core.boundconnector.messagescalar.ScalarSubscriber;
 import org.df4j.core.util.executor.CurrentThreadExecutor;
+import org.df4j.core.util.executor.TrampolineExecutor;
+import org.df4j.core.util.executor.VirtualThreadExecutor;
 
 import java.util.ArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * AsyncProc is an Asynchronous Procedure.
@@ -32,6 +34,9 @@ public abstract class AsyncProc implements Runnable {
     public static final Executor directExec = (Runnable r)->r.run();
     public static final CurrentThreadExecutor currentThreadExec = new CurrentThreadExecutor();
     public static final Executor newThreadExec = (Runnable r)->new Thread(r).start();
+    public static final TrampolineExecutor trampolineExec = new TrampolineExecutor();
+    /** for actions which block: each firing runs in a new virtual thread, where available */
+    public static final Executor virtualThreadExec = new VirtualThreadExecutor();
     private static InheritableThreadLocal<Executor> threadLocalExecutor = new InheritableThreadLocal<Executor>(){
         @Override
         protected Executor initialValue() {
@@ -44,6 +49,16 @@ public abstract class AsyncProc implements Runnable {
         }
     };
     private static final Object[] emptyArgs = new Object[0];
+    private static final AtomicLongFieldUpdater<AsyncProc> pinStateUpdater
+            = AtomicLongFieldUpdater.newUpdater(AsyncProc.class, "pinState");
+    /**
+     * pins with lesser numbers have their own bit in {@link #pinState}
+     */
+    private static final int MASK_PIN_COUNT = 32;
+    /**
+     * pins with greater numbers are counted in the upper half of {@link #pinState}
+     */
+    private static final long COUNTED_PIN = 1L << MASK_PIN_COUNT;
 
     /**
      * for debug purposes, call
@@ -69,13 +84,17 @@ public abstract class AsyncProc implements Runnable {
     /**
      * total number of created pins
      */
-    private AtomicInteger pinCount = new AtomicInteger();
+    private int pinCount = 0;
     /**
-     * total number of created pins
+     * blocked pins, packed in a single word:
+     * lower half is a bitmask of blocked pins with numbers less than {@link #MASK_PIN_COUNT},
+     * upper half is the number of other blocked pins.
+     * The node is ready to fire when the state is 0.
+     * Updated with CAS, so that pins are switched without locking the node.
      */
-    private AtomicInteger blockedPinCount = new AtomicInteger();
+    private volatile long pinState = 0;
 
-    private Executor executor;
+    private volatile Executor executor;
 
     public void setExecutor(Executor exec) {
         this.executor = exec;
@@ -86,15 +105,16 @@ public abstract class AsyncProc implements Runnable {
      * and method run() is to be invoked.
      * Safe way is to submit this instance as a Runnable to an Executor.
      * Fast way is to invoke it directly, but make sure the chain of
-     * direct invocations is short to avoid stack overflow.
+     * direct invocations is short to avoid stack overflow,
+     * or use {@link #trampolineExec} which limits the depth of direct invocations.
      */
     protected void fire() {
-        synchronized (this) {
-            if (executor == null) {
-                executor = threadLocalExecutor.get();
-            }
+        Executor exec = executor;
+        if (exec == null) {
+            exec = threadLocalExecutor.get();
+            executor = exec;
         }
-        executor.execute(this);
+        exec.execute(this);
     }
 
     protected abstract boolean isStarted();
@@ -106,7 +126,13 @@ public abstract class AsyncProc implements Runnable {
         return asyncParams.size();
     }
 
-    protected synchronized Object[] collectTokens() {
+    /**
+     * Not synchronized: tokens are published to the firing thread by the pin state update,
+     * and the list of connectors is not expected to change while the node is firing.
+     *
+     * @return current values of all the connectors, in order of declaration
+     */
+    protected Object[] collectTokens() {
         if (asyncParams == null) {
             return emptyArgs;
         } else {
@@ -119,6 +145,42 @@ public abstract class AsyncProc implements Runnable {
         }
     }
 
+    /**
+     * @param lock a pin of this node
+     * @return true if all the pins of this node except the given one are unblocked
+     */
+    protected boolean isReadyExcept(Lock lock) {
+        return lock.pinMask != 0 && (pinState & ~lock.pinMask) == 0;
+    }
+
+    /**
+     * restores the initial state of all the pins, so that this node can be used again.
+     * Must not be called while the node is running.
+     */
+    protected void resetAll() {
+        if (locks != null) {
+            for (int k = 0; k < locks.size(); k++) {
+                locks.get(k).reset();
+            }
+        }
+        if (asyncParams != null) {
+            for (int k = 0; k < asyncParams.size(); k++) {
+                asyncParams.get(k).reset();
+            }
+        }
+    }
+
+    /**
+     * cancels the subscriptions of all the connectors, so that publishers do not retain this node
+     */
+    protected void cancelAll() {
+        if (asyncParams != null) {
+            for (int k = 0; k < asyncParams.size(); k++) {
+                asyncParams.get(k).cancel();
+            }
+        }
+    }
+
     protected void purgeAll() {
         if (locks != null) {
             for (int k = 0; k < locks.size(); k++) {
@@ -140,13 +202,19 @@ public abstract class AsyncProc implements Runnable {
      */
     private abstract class BaseLock {
         int pinNumber; // distinct for all other connectors of this node
-        boolean blocked;
+        /** the bit of this pin in pinState, or 0 if this pin is counted */
+        final long pinMask;
+        /** state of a counted pin, guarded by this */
+        private boolean blocked;
+        /** the state restored by {@link #reset()} */
+        private final boolean initiallyBlocked;
 
         public BaseLock(boolean blocked) {
-            this.pinNumber = pinCount.getAndIncrement();
-            this.blocked = blocked;
+            this.pinNumber = pinCount++;
+            this.pinMask = pinNumber < MASK_PIN_COUNT ? 1L << pinNumber : 0;
+            this.initiallyBlocked = blocked;
             if (blocked) {
-                blockedPinCount.incrementAndGet();
+                block();
             }
             register();
         }
@@ -159,7 +227,26 @@ public abstract class AsyncProc implements Runnable {
         }
 
         public boolean isBlocked() {
-            return blocked;
+            if (pinMask != 0) {
+                return (pinState & pinMask) != 0;
+            }
+            synchronized (this) {
+                return blocked;
+            }
+        }
+
+        private void block() {
+            if (pinMask != 0) {
+                pinStateUpdater.getAndAccumulate(AsyncProc.this, pinMask, (state, mask) -> state | mask);
+                return;
+            }
+            synchronized (this) {
+                if (blocked) {
+                    return;
+                }
+                blocked = true;
+                pinStateUpdater.getAndAdd(AsyncProc.this, COUNTED_PIN);
+            }
         }
 
         /**
@@ -167,25 +254,62 @@ public abstract class AsyncProc implements Runnable {
          * called when a token is consumed and the pin become empty
          */
         protected void turnOff() {
-            if (blocked) {
-                return;
+            if (pinMask != 0 && (pinState & pinMask) != 0) {
+                return; // blocked already
             }
-            blocked = true;
-            blockedPinCount.incrementAndGet();
+            block();
         }
 
+        /**
+         * unlocks the pin, and fires the node if this was the last blocked pin
+         *
+         * @return true if the pin was blocked
+         */
         protected boolean turnOn() {
-            if (!blocked) {
-                return false;
+            long rest;
+            if (pinMask != 0) {
+                if ((pinState & pinMask) == 0) {
+                    return false;
+                }
+                long prev = pinStateUpdater.getAndAccumulate(AsyncProc.this, pinMask, (state, mask) -> state & ~mask);
+                if ((prev & pinMask) == 0) {
+                    return false; // unlocked concurrently
+                }
+                rest = prev & ~pinMask;
+            } else {
+                synchronized (this) {
+                    if (!blocked) {
+                        return false;
+                    }
+                    blocked = false;
+                    rest = pinStateUpdater.addAndGet(AsyncProc.this, -COUNTED_PIN);
+                }
             }
-            blocked = false;
-            long res = blockedPinCount.decrementAndGet();
-            if (res == 0) {
+            if (rest == 0) {
                 fire();
             }
             return true;
         }
 
+        /**
+         * restores the initial state of this pin, without firing the node.
+         * Connectors also drop their tokens.
+         */
+        protected void reset() {
+            if (initiallyBlocked) {
+                block();
+            } else if (pinMask != 0) {
+                pinStateUpdater.getAndAccumulate(AsyncProc.this, pinMask, (state, mask) -> state & ~mask);
+            } else {
+                synchronized (this) {
+                    if (blocked) {
+                        blocked = false;
+                        pinStateUpdater.getAndAdd(AsyncProc.this, -COUNTED_PIN);
+                    }
+                }
+            }
+        }
+
         abstract protected void register();
 
         abstract protected void unRegister();
@@ -231,9 +355,7 @@ public abstract class AsyncProc implements Runnable {
         }
 
         protected void unRegister() {
-            if (blocked) {
-                turnOn();
-            }
+            turnOn();
             locks.remove(this);
         }
     }
@@ -260,7 +382,7 @@ public abstract class AsyncProc implements Runnable {
             super();
         }
 
-        public synchronized T current() {
+        public T current() {
             if (exception != null) {
                 throw new IllegalStateException(exception);
             }
@@ -299,8 +421,31 @@ public abstract class AsyncProc implements Runnable {
             this.exception = throwable;
         }
 
+        /**
+         * keeps the subscription, to cancel it later
+         */
+        @Override
+        public synchronized void onSubscribe(Subscription subscription) {
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+
+        @Override
+        protected synchronized void reset() {
+            subscription = null;
+            cancelled = false;
+            completed = false;
+            current = null;
+            exception = null;
+            super.reset();
+        }
+
         public synchronized void cancel() {
             if (subscription == null) {
+                cancelled = true;
                 return;
             }
             Subscription subscription = this.subscription;
@@ -324,9 +469,7 @@ public abstract class AsyncProc implements Runnable {
             if (isStarted()) {
                 throw new IllegalStateException("cannot unregister connector after start");
             }
-            if (blocked) {
-                turnOn();
-            }
+            turnOn();
             asyncParams.remove(this);
         }
 
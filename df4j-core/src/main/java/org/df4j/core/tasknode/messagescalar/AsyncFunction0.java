@@ -0,0 +1,16 @@
+package org.df4j.core.tasknode.messagescalar;
+
+/**
+ * Scalar node without arguments, which calls its typed action directly,
+ * without reflection and without array of arguments.
+ *
+ * @param <R> type of the result
+ */
+public abstract class AsyncFunction0<R> extends AsyncSupplier<R> {
+    protected abstract R apply() throws Exception;
+
+    @Override
+    protected R callAction() throws Exception {
+        return apply();
+    }
+}
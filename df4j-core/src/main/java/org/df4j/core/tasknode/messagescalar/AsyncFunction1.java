@@ -0,0 +1,35 @@
+package org.df4j.core.tasknode.messagescalar;
+
+import org.df4j.core.boundconnector.messagescalar.ScalarSubscriber;
+
+/**
+ * Scalar node with 1 argument, which passes the values of its connectors
+ * directly to the typed action, without reflection and without array of arguments.
+ *
+ * Like {@link AsyncFunction}, this node is a {@link ScalarSubscriber} itself, passing tokens to its only connector,
+ * so it can be subscribed to a publisher directly. Nodes with several arguments are not:
+ * as with {@link AsyncBiFunction}, a publisher is connected to one of their {@code paramN} connectors.
+ *
+ * @param <T1> type of the first argument
+ * @param <R> type of the result
+ */
+public abstract class AsyncFunction1<T1, R> extends AsyncSupplier<R> implements ScalarSubscriber<T1> {
+    public final ConstInput<T1> param1 = new ConstInput<>();
+
+    protected abstract R apply(T1 arg1) throws Exception;
+
+    @Override
+    protected R callAction() throws Exception {
+        return apply(param1.current());
+    }
+
+    @Override
+    public void post(T1 message) {
+        param1.post(message);
+    }
+
+    @Override
+    public void postFailure(Throwable throwable) {
+        param1.postFailure(throwable);
+    }
+}
@@ -0,0 +1,23 @@
+package org.df4j.core.tasknode.messagescalar;
+
+/**
+ * Scalar node with 3 arguments, which passes the values of its connectors
+ * directly to the typed action, without reflection and without array of arguments.
+ *
+ * @param <T1> type of the first argument
+ * @param <T2> type of the second argument
+ * @param <T3> type of the third argument
+ * @param <R> type of the result
+ */
+public abstract class AsyncFunction3<T1, T2, T3, R> extends AsyncSupplier<R> {
+    public final ConstInput<T1> param1 = new ConstInput<>();
+    public final ConstInput<T2> param2 = new ConstInput<>();
+    public final ConstInput<T3> param3 = new ConstInput<>();
+
+    protected abstract R apply(T1 arg1, T2 arg2, T3 arg3) throws Exception;
+
+    @Override
+    protected R callAction() throws Exception {
+        return apply(param1.current(), param2.current(), param3.current());
+    }
+}
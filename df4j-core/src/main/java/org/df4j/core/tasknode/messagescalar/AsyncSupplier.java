@@ -80,13 +80,20 @@ public class AsyncSupplier<R> extends AsyncAction<R> implements ScalarPublisher<
 
     @Override
     public void run() {
+        R res = null;
+        Throwable failure = null;
         try {
             blockStarted();
-            R res = callAction();
-            asyncResult().complete(res);
+            res = callAction();
         } catch (Throwable e) {
-            result.completeExceptionally(e);
+            failure = e;
+        }
+        // stop before completing the result, so that its waiters see the node stopped
+        CompletablePromise<R> result = markStopped();
+        if (failure == null) {
+            result.complete(res);
+        } else {
+            result.completeExceptionally(failure);
         }
-        stop();
     }
 }
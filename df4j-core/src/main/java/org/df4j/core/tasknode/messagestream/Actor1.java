@@ -20,7 +20,18 @@ import org.df4j.core.boundconnector.messagestream.StreamSubscriber;
  * @param <M> the type of messages, accepted via predefined port.
  */
 public abstract class Actor1<M> extends Actor implements StreamSubscriber<M> {
-    protected final StreamInput<M> mainInput = new StreamInput<M>(this);
+    protected final StreamInput<M> mainInput = createMainInput();
+
+    /**
+     * Called once, during construction, before constructors of subclasses run.
+     * Override to use another kind of mailbox, e.g.
+     * {@link org.df4j.core.boundconnector.messagestream.ConcurrentStreamInput} for actors with many producers.
+     *
+     * @return the predefined input stream port
+     */
+    protected StreamInput<M> createMainInput() {
+        return new StreamInput<M>(this);
+    }
 
     @Override
     public void post(M m) {
@@ -49,9 +60,10 @@ public abstract class Actor1<M> extends Actor implements StreamSubscriber<M> {
         M message = mainInput.current();
         if (message != null) {
             runAction(message);
-        } else {
+        } else if (mainInput.isClosed()) {
             completion();
         }
+        // else a spurious firing: a concurrent input may be turned on after its queue is drained
     }
 
     protected abstract void runAction(M arg) throws Exception;
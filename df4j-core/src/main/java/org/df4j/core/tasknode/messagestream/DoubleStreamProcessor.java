@@ -0,0 +1,31 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.primitivestream.DoubleStreamInput;
+import org.df4j.core.boundconnector.primitivestream.DoubleStreamOutput;
+import org.df4j.core.boundconnector.primitivestream.DoubleStreamSubscriber;
+
+/**
+ * Variant of {@link StreamProcessor} for streams of {@code double} values, which are never boxed.
+ */
+public abstract class DoubleStreamProcessor extends PrimitiveStreamProcessor<DoubleStreamInput, DoubleStreamOutput>
+        implements DoubleStreamSubscriber {
+    public DoubleStreamProcessor() {
+        super(DoubleStreamInput::new, new DoubleStreamOutput());
+    }
+
+    public void subscribe(DoubleStreamSubscriber subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    public void post(double value) {
+        input.post(value);
+    }
+
+    @Override
+    protected void processCurrent() throws Exception {
+        output.post(process(input.current()));
+    }
+
+    protected abstract double process(double value) throws Exception;
+}
@@ -0,0 +1,31 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.primitivestream.IntStreamInput;
+import org.df4j.core.boundconnector.primitivestream.IntStreamOutput;
+import org.df4j.core.boundconnector.primitivestream.IntStreamSubscriber;
+
+/**
+ * Variant of {@link StreamProcessor} for streams of {@code int} values, which are never boxed.
+ */
+public abstract class IntStreamProcessor extends PrimitiveStreamProcessor<IntStreamInput, IntStreamOutput>
+        implements IntStreamSubscriber {
+    public IntStreamProcessor() {
+        super(IntStreamInput::new, new IntStreamOutput());
+    }
+
+    public void subscribe(IntStreamSubscriber subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    public void post(int value) {
+        input.post(value);
+    }
+
+    @Override
+    protected void processCurrent() throws Exception {
+        output.post(process(input.current()));
+    }
+
+    protected abstract int process(int value) throws Exception;
+}
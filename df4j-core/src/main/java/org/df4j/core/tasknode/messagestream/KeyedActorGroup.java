@@ -0,0 +1,155 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.StreamSubscriber;
+import org.df4j.core.tasknode.messagescalar.AllOf;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * A group of actors which process messages serially per key, and in parallel across keys.
+ *
+ * Each message is routed by the hash of its key to one of a fixed number of shards,
+ * each shard being an {@link Actor1}, so messages with the same key are processed
+ * in the order of posting, and messages with different keys may be processed concurrently.
+ * The number of messages posted to each shard is counted, to detect skew of the key distribution.
+ *
+ * @param <K> type of keys
+ * @param <M> type of messages
+ */
+public abstract class KeyedActorGroup<K, M> implements StreamSubscriber<M> {
+    protected final Function<? super M, ? extends K> keyExtractor;
+    protected final Shard[] shards;
+    private final AtomicLongArray postedCounts;
+    private final AllOf asyncResult = new AllOf();
+
+    /**
+     * @param shardCount number of shards
+     * @param keyExtractor computes the key of a message
+     * @param executor executor of the shards, or null to use the default one
+     */
+    @SuppressWarnings("unchecked")
+    public KeyedActorGroup(int shardCount, Function<? super M, ? extends K> keyExtractor, Executor executor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        this.keyExtractor = keyExtractor;
+        this.shards = (Shard[]) new KeyedActorGroup<?, ?>.Shard[shardCount];
+        this.postedCounts = new AtomicLongArray(shardCount);
+        for (int k = 0; k < shardCount; k++) {
+            Shard shard = new Shard();
+            if (executor != null) {
+                shard.setExecutor(executor);
+            }
+            shards[k] = shard;
+            asyncResult.registerAsyncResult(shard);
+        }
+    }
+
+    public KeyedActorGroup(int shardCount, Function<? super M, ? extends K> keyExtractor) {
+        this(shardCount, keyExtractor, null);
+    }
+
+    public void start() {
+        for (Shard shard: shards) {
+            shard.start();
+        }
+        asyncResult.start();
+    }
+
+    /**
+     * @return completed when all the shards are completed, or failed when any shard failed
+     */
+    public AllOf asyncResult() {
+        return asyncResult;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param key key of a message
+     * @return index of the shard which processes messages with that key
+     */
+    public int shardIndex(K key) {
+        int h = key == null ? 0 : key.hashCode();
+        // spread the high bits, as in HashMap
+        h ^= h >>> 16;
+        return (h & 0x7fffffff) % shards.length;
+    }
+
+    @Override
+    public void post(M message) {
+        int index = shardIndex(keyExtractor.apply(message));
+        postedCounts.incrementAndGet(index);
+        shards[index].post(message);
+    }
+
+    /**
+     * passes the failure to all the shards
+     */
+    @Override
+    public void postFailure(Throwable throwable) {
+        for (Shard shard: shards) {
+            shard.postFailure(throwable);
+        }
+    }
+
+    /**
+     * closes all the shards; each shard completes after processing its messages
+     */
+    @Override
+    public void onComplete() {
+        for (Shard shard: shards) {
+            shard.onComplete();
+        }
+    }
+
+    /**
+     * @return number of messages posted to each shard
+     */
+    public long[] getPostedCounts() {
+        long[] res = new long[shards.length];
+        for (int k = 0; k < res.length; k++) {
+            res[k] = postedCounts.get(k);
+        }
+        return res;
+    }
+
+    /**
+     * @return ratio of the number of messages posted to the busiest shard to the average number;
+     * 1.0 means even distribution
+     */
+    public double getSkew() {
+        long max = 0;
+        long total = 0;
+        for (int k = 0; k < shards.length; k++) {
+            long count = postedCounts.get(k);
+            max = Math.max(max, count);
+            total += count;
+        }
+        if (total == 0) {
+            return 1.0;
+        }
+        return (double) max * shards.length / total;
+    }
+
+    /**
+     * called serially for messages of the same shard
+     *
+     * @param key key of the message
+     * @param message next message
+     * @throws Exception if processing failed; then the shard is stopped
+     */
+    protected abstract void process(K key, M message) throws Exception;
+
+    protected class Shard extends Actor1<M> {
+
+        @Override
+        protected void runAction(M message) throws Exception {
+            process(keyExtractor.apply(message), message);
+        }
+    }
+}
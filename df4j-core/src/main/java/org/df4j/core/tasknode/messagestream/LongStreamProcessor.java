@@ -0,0 +1,31 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.primitivestream.LongStreamInput;
+import org.df4j.core.boundconnector.primitivestream.LongStreamOutput;
+import org.df4j.core.boundconnector.primitivestream.LongStreamSubscriber;
+
+/**
+ * Variant of {@link StreamProcessor} for streams of {@code long} values, which are never boxed.
+ */
+public abstract class LongStreamProcessor extends PrimitiveStreamProcessor<LongStreamInput, LongStreamOutput>
+        implements LongStreamSubscriber {
+    public LongStreamProcessor() {
+        super(LongStreamInput::new, new LongStreamOutput());
+    }
+
+    public void subscribe(LongStreamSubscriber subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    public void post(long value) {
+        input.post(value);
+    }
+
+    @Override
+    protected void processCurrent() throws Exception {
+        output.post(process(input.current()));
+    }
+
+    protected abstract long process(long value) throws Exception;
+}
@@ -0,0 +1,164 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.MulticastStreamOutput;
+import org.df4j.core.boundconnector.permitstream.Semafor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A {@link StreamProcessor} which runs {@link #process} for up to parallelism messages at once.
+ *
+ * The actor itself only numbers messages and submits them to the worker executor;
+ * the number of messages in processing is limited by the {@link Semafor} {@link #permits}.
+ * In ordered mode, results are posted in the order of messages, through a reorder buffer
+ * of parallelism slots, and a permit is returned when the result is posted.
+ * In unordered mode, results are posted as soon as they are computed.
+ * Null results are not posted.
+ * The output is completed after all messages in processing are done.
+ *
+ * @param <M> type of messages
+ * @param <R> type of results
+ */
+public abstract class ParallelStreamProcessor<M, R> extends Actor1<M> implements Publisher<R> {
+    private static final Object NO_RESULT = new Object();
+
+    protected final MulticastStreamOutput<R> output = new MulticastStreamOutput<>(this);
+    protected final Semafor permits;
+    protected final int parallelism;
+    protected final boolean ordered;
+    protected final Executor workers;
+    /** number of the next message, accessed by the actor only */
+    private long nextSeq = 0;
+    /** guards the fields below, and serializes posting to the output */
+    private final Object outputLock = new Object();
+    /** slot (seq % parallelism) keeps the result of message number seq until it is posted; null in unordered mode */
+    private final Object[] reorderBuffer;
+    private long nextToPost = 0;
+    private int inFlight = 0;
+    private boolean closing = false;
+    private boolean failed = false;
+
+    /**
+     * @param parallelism maximum number of messages processed at once
+     * @param ordered if true, results are posted in the order of messages
+     * @param workers executor to run {@link #process}
+     */
+    public ParallelStreamProcessor(int parallelism, boolean ordered, Executor workers) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be >= 1");
+        }
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.workers = workers;
+        this.permits = new Semafor(this, parallelism);
+        this.reorderBuffer = ordered ? new Object[parallelism] : null;
+    }
+
+    public ParallelStreamProcessor(int parallelism, boolean ordered) {
+        this(parallelism, ordered, ForkJoinPool.commonPool());
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        output.subscribe(subscriber);
+    }
+
+    @Override
+    protected void runAction(M message) {
+        long seq = nextSeq++;
+        synchronized (outputLock) {
+            inFlight++;
+        }
+        workers.execute(() -> runTask(seq, message));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTask(long seq, M message) {
+        R res;
+        try {
+            res = process(message);
+        } catch (Throwable e) {
+            fail(e);
+            return;
+        }
+        synchronized (outputLock) {
+            if (failed) {
+                return;
+            }
+            if (!ordered) {
+                inFlight--;
+                if (res != null) {
+                    output.post(res);
+                }
+                permits.release(1);
+            } else {
+                reorderBuffer[(int) (seq % parallelism)] = res == null ? NO_RESULT : res;
+                for (;;) {
+                    int slot = (int) (nextToPost % parallelism);
+                    Object next = reorderBuffer[slot];
+                    if (next == null) {
+                        break;
+                    }
+                    reorderBuffer[slot] = null;
+                    nextToPost++;
+                    inFlight--;
+                    if (next != NO_RESULT) {
+                        output.post((R) next);
+                    }
+                    permits.release(1);
+                }
+            }
+            if (closing && inFlight == 0) {
+                finish();
+            }
+        }
+    }
+
+    private void fail(Throwable e) {
+        synchronized (outputLock) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+        }
+        result.completeExceptionally(e);
+        stop();
+        // no more posts after failed is set
+        output.postFailure(e);
+    }
+
+    private void finish() {
+        stop();
+        output.complete();
+    }
+
+    @Override
+    protected void completion() throws Exception {
+        synchronized (outputLock) {
+            closing = true;
+            if (inFlight == 0 && !failed) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * called concurrently, for up to parallelism messages
+     *
+     * @param message next message
+     * @return result to post, or null if nothing to post
+     * @throws Exception if processing failed; then the output is failed and the actor is stopped
+     */
+    protected abstract R process(M message) throws Exception;
+}
@@ -0,0 +1,56 @@
+package org.df4j.core.tasknode.messagestream;
+
+import org.df4j.core.boundconnector.primitivestream.PrimitiveStreamInput;
+import org.df4j.core.boundconnector.primitivestream.PrimitiveStreamOutput;
+import org.df4j.core.boundconnector.primitivestream.PrimitiveStreamSubscriber;
+import org.df4j.core.tasknode.AsyncProc;
+
+import java.util.function.Function;
+
+/**
+ * Passes the end of the input stream to the output; subclasses process the tokens.
+ *
+ * @param <I> type of the input
+ * @param <O> type of the output
+ */
+public abstract class PrimitiveStreamProcessor<I extends PrimitiveStreamInput<?>, O extends PrimitiveStreamOutput<?>>
+        extends Actor implements PrimitiveStreamSubscriber {
+    protected final I input;
+    protected final O output;
+
+    protected PrimitiveStreamProcessor(Function<AsyncProc, I> inputFactory, O output) {
+        this.input = inputFactory.apply(this);
+        this.output = output;
+    }
+
+    @Override
+    public void postFailure(Throwable ex) {
+        input.postFailure(ex);
+    }
+
+    @Override
+    public void onComplete() {
+        input.onComplete();
+    }
+
+    @Override
+    protected void runAction() throws Exception {
+        if (input.hasNext()) {
+            processCurrent();
+            return;
+        }
+        Throwable ex = input.getException();
+        if (ex == null) {
+            output.complete();
+        } else {
+            output.postFailure(ex);
+            result.completeExceptionally(ex);
+        }
+        stop();
+    }
+
+    /**
+     * processes the current token of the input and posts the result to the output
+     */
+    protected abstract void processCurrent() throws Exception;
+}
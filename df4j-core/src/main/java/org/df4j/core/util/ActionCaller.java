@@ -3,64 +3,130 @@ package org.df4j.core.util;
 import org.df4j.core.tasknode.Action;
 import org.df4j.core.util.invoker.AbstractInvoker;
 import org.df4j.core.util.invoker.Invoker;
-import org.df4j.core.util.invoker.MethodInvoker;
+import org.df4j.core.util.invoker.MethodHandleInvoker;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 
 public class ActionCaller<R> {
     private final static Class actionAnnotation = Action.class;
 
+    /**
+     * the class hierarchy is scanned only once per class, when its first instance looks for the action
+     */
+    private static final ClassValue<ActionDescriptor> descriptors = new ClassValue<ActionDescriptor>() {
+        @Override
+        protected ActionDescriptor computeValue(Class<?> type) {
+            return scan(type);
+        }
+    };
+
     public static Invoker findAction(Object objectWithAction, int argCount) throws NoSuchMethodException {
-        Class<?> startClass = objectWithAction.getClass();
-        Invoker actionInvoker = null;
-        Method resultMethod = null;
-        classScan:
+        return descriptors.get(objectWithAction.getClass()).resolve(objectWithAction, argCount);
+    }
+
+    /**
+     * Same as {@link #findAction}, but scans the class hierarchy each time, bypassing the cache.
+     */
+    public static Invoker findActionUncached(Object objectWithAction, int argCount) throws NoSuchMethodException {
+        return scan(objectWithAction.getClass()).resolve(objectWithAction, argCount);
+    }
+
+    /**
+     * Collects everything that does not depend on a particular instance:
+     * annotated fields in the order they are checked, and then either the annotated method,
+     * or the error to report if all the fields are null.
+     */
+    private static ActionDescriptor scan(Class<?> startClass) {
+        ArrayList<MethodHandle> fieldGetters = new ArrayList<>();
         for (Class<?> clazz = startClass; !Object.class.equals(clazz) ;clazz = clazz.getSuperclass()) {
             Field[] fields = clazz.getDeclaredFields();
             for (Field field: fields) {
                 if (!field.isAnnotationPresent(actionAnnotation)) continue;
                 if (!AbstractInvoker.class.isAssignableFrom(field.getType())) {
-                    throw new NoSuchMethodException("variable annotated with @Action must have type "+AbstractInvoker.class.getSimpleName());
+                    return new ActionDescriptor(fieldGetters, "variable annotated with @Action must have type "+AbstractInvoker.class.getSimpleName());
                 }
                 field.setAccessible(true);
-                AbstractInvoker invoker;
                 try {
-                    invoker = (AbstractInvoker) field.get(objectWithAction);
+                    MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+                    fieldGetters.add(getter.asType(MethodType.genericMethodType(1)));
                 } catch (IllegalAccessException e) {
                     continue;
                 }
-                if (invoker == null) continue;
-                if (actionInvoker != null) {
-                    throw new NoSuchMethodException("class "+startClass.getName()+" has more than one non-null field annotated with @Action");
-                }
-                actionInvoker = invoker;
-                break classScan;
             }
+            Method resultMethod = null;
             Method[] methods = clazz.getDeclaredMethods();
             for (Method m: methods) {
                 if (m.isAnnotationPresent(actionAnnotation)) {
                     if (resultMethod != null) {
-                        throw new NoSuchMethodException("in class "+startClass.getName()+" more than one method annotated with @Action");
+                        return new ActionDescriptor(fieldGetters, "in class "+startClass.getName()+" more than one method annotated with @Action");
                     }
                     resultMethod = m;
                 }
             }
             if (resultMethod != null) {
-                int paramCount = resultMethod.getParameterTypes().length;
-                if (paramCount != argCount) {
-                    throw new NoSuchMethodException("class "+startClass.getName()
-                            +" has a method annotated with @Action but with wrong numbers of parameters ("
-                            +paramCount+" instead of "+argCount);
-                }
                 resultMethod.setAccessible(true);
-                actionInvoker = new MethodInvoker(objectWithAction, resultMethod);
-                break;
+                try {
+                    return new ActionDescriptor(startClass, fieldGetters, resultMethod);
+                } catch (IllegalAccessException e) {
+                    return new ActionDescriptor(fieldGetters, "method "+resultMethod+" annotated with @Action is not accessible");
+                }
             }
         }
-        if (actionInvoker == null) {
-            throw new NoSuchMethodException("class "+startClass.getName()+" has no field or method annotated with @Action");
+        return new ActionDescriptor(fieldGetters, "class "+startClass.getName()+" has no field or method annotated with @Action");
+    }
+
+    private static class ActionDescriptor {
+        private final MethodHandle[] fieldGetters;
+        private final String error;
+        private final MethodHandle methodHandle;
+        private final boolean returnsValue;
+        private final int paramCount;
+        private final String wrongParamCountMessage;
+
+        ActionDescriptor(ArrayList<MethodHandle> fieldGetters, String error) {
+            this.fieldGetters = fieldGetters.toArray(new MethodHandle[0]);
+            this.error = error;
+            this.methodHandle = null;
+            this.returnsValue = false;
+            this.paramCount = 0;
+            this.wrongParamCountMessage = null;
+        }
+
+        ActionDescriptor(Class<?> startClass, ArrayList<MethodHandle> fieldGetters, Method method) throws IllegalAccessException {
+            this.fieldGetters = fieldGetters.toArray(new MethodHandle[0]);
+            this.error = null;
+            this.methodHandle = MethodHandleInvoker.genericHandle(method);
+            this.returnsValue = !method.getReturnType().equals(void.class);
+            this.paramCount = method.getParameterCount();
+            this.wrongParamCountMessage = "class "+startClass.getName()
+                    +" has a method annotated with @Action but with wrong numbers of parameters ("
+                    +paramCount+" instead of ";
+        }
+
+        Invoker resolve(Object objectWithAction, int argCount) throws NoSuchMethodException {
+            for (MethodHandle getter: fieldGetters) {
+                AbstractInvoker invoker;
+                try {
+                    invoker = (AbstractInvoker) (Object) getter.invokeExact(objectWithAction);
+                } catch (Throwable e) {
+                    continue;
+                }
+                if (invoker != null) {
+                    return invoker;
+                }
+            }
+            if (error != null) {
+                throw new NoSuchMethodException(error);
+            }
+            if (paramCount != argCount) {
+                throw new NoSuchMethodException(wrongParamCountMessage+argCount);
+            }
+            return new MethodHandleInvoker<>(objectWithAction, methodHandle, returnsValue);
         }
-        return actionInvoker;
     }
 }
@@ -0,0 +1,271 @@
+package org.df4j.core.util;
+
+import org.df4j.core.boundconnector.permitscalar.ScalarPermitSubscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Timer for large numbers of short timeouts (after G. Varghese and T. Lauck, "Hashed and Hierarchical Timing Wheels").
+ *
+ * Timeouts are kept in a circular array of buckets, one bucket per tick, so scheduling and cancellation
+ * take constant time, and the timer thread only looks at the bucket of the current tick.
+ * A timeout longer than the wheel is kept in its bucket for the required number of rounds.
+ * The precision of a timeout is one tick.
+ *
+ * New and cancelled timeouts are passed to the timer thread through lock-free stacks
+ * linked through the timeouts themselves, so only that thread touches the buckets.
+ * An expired subscriber is released on the timer thread, which normally just unblocks
+ * a pin and so hands the node over to its own executor; subscribers which take long to release
+ * should be served by a separate executor.
+ * If releasing fails, or the executor rejects the release, the subscriber receives the exception
+ * through {@link ScalarPermitSubscriber#postFailure}; the timer goes on in any case.
+ */
+public class HashedWheelTimer {
+    public static final long DEFAULT_TICK_MILLIS = 1;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<HashedWheelTimer.Timeout> stateUpdater
+            = AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimer.Timeout.class, "state");
+
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final AtomicReference<Timeout> pending = new AtomicReference<>();
+    private final AtomicReference<Timeout> cancelled = new AtomicReference<>();
+    private final Thread thread;
+    private final long startTime;
+    private volatile boolean stopped = false;
+    /** accessed by the timer thread only */
+    private long tick = 0;
+
+    /**
+     * @param tickDuration duration of a tick
+     * @param unit time unit of tickDuration
+     * @param wheelSize number of buckets, rounded up to a power of 2
+     * @param executor executor to release expired subscribers, or null to release them on the timer thread
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be > 0");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be > 0");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.thread = new Thread(this::run, "HashedWheelTimer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public HashedWheelTimer(Executor executor) {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE, executor);
+    }
+
+    public HashedWheelTimer() {
+        this(null);
+    }
+
+    /**
+     * @param sema subscriber to release when the delay expires
+     * @param delay the delay
+     * @param unit time unit of the delay
+     * @return subscription to cancel the timeout
+     */
+    public Subscription schedule(ScalarPermitSubscriber sema, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("timer stopped");
+        }
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        if (deadline < 0) {
+            deadline = Long.MAX_VALUE; // overflow
+        }
+        Timeout timeout = new Timeout(sema, deadline);
+        Timeout head;
+        do {
+            head = pending.get();
+            timeout.nextPending = head;
+        } while (!pending.compareAndSet(head, timeout));
+        return timeout;
+    }
+
+    /**
+     * stops the timer thread; scheduled timeouts never expire
+     */
+    public void stop() {
+        stopped = true;
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    // interrupted by stop()
+                }
+                continue;
+            }
+            removeCancelled();
+            transferPending();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout = pending.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (timeout.state == ST_INIT) {
+                long expirationTick = Math.max(timeout.deadline / tickNanos, tick);
+                timeout.remainingRounds = (expirationTick - tick) >> Integer.numberOfTrailingZeros(wheel.length);
+                timeout.bucket = (int) (expirationTick & mask);
+                link(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout = cancelled.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(int bucket) {
+        Timeout timeout = wheel[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                unlink(timeout);
+                if (stateUpdater.compareAndSet(timeout, ST_INIT, ST_EXPIRED)) {
+                    if (executor == null) {
+                        timeout.run();
+                    } else {
+                        try {
+                            executor.execute(timeout);
+                        } catch (Throwable e) {
+                            // e.g. rejected by a shut down executor
+                            timeout.fail(e);
+                        }
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void link(Timeout timeout) {
+        Timeout head = wheel[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        wheel[timeout.bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else if (wheel[timeout.bucket] == timeout) {
+            wheel[timeout.bucket] = timeout.next;
+        } else {
+            return; // unlinked already
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    class Timeout implements Subscription, Runnable {
+        final ScalarPermitSubscriber sema;
+        /** nanoseconds since the start of the timer */
+        final long deadline;
+        volatile int state = ST_INIT;
+        /** links of the stacks of new and cancelled timeouts, published by CAS */
+        Timeout nextPending;
+        Timeout nextCancelled;
+        /** the fields below are accessed by the timer thread only */
+        Timeout prev;
+        Timeout next;
+        int bucket = -1;
+        long remainingRounds;
+
+        Timeout(ScalarPermitSubscriber sema, long deadline) {
+            this.sema = sema;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try {
+                sema.release();
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * passes the failure to the subscriber;
+         * if the subscriber throws, reports to the uncaught exception handler of the current thread,
+         * so that one failing subscriber does not stop the timer thread
+         */
+        void fail(Throwable e) {
+            try {
+                sema.postFailure(e);
+            } catch (Throwable e2) {
+                if (e2 != e) {
+                    e2.addSuppressed(e);
+                }
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e2);
+            }
+        }
+
+        @Override
+        public void request(long n) {}
+
+        /**
+         * cancels the timeout, if not yet expired
+         */
+        @Override
+        public void cancel() {
+            if (!stateUpdater.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return;
+            }
+            Timeout head;
+            do {
+                head = cancelled.get();
+                nextCancelled = head;
+            } while (!cancelled.compareAndSet(head, this));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.df4j.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer
+ * (after D. Vyukov's bounded MPMC queue, with the consumer side simplified).
+ *
+ * Producer claims a slot with a single CAS on the tail index,
+ * and publishes the item with a volatile write of the slot sequence.
+ * The write is volatile, not ordered, so that a following read by the producer
+ * (e.g. of the consumer's pin) cannot be reordered before it.
+ * Methods {@link #peek()}, {@link #poll()} and {@link #isEmpty()} may be called by one thread at a time only.
+ *
+ * @param <T> type of items
+ */
+public class MpscArrayQueue<T> {
+    private final Object[] buffer;
+    /** for each slot, the tail index value at which the slot is free to be written, plus one when it is written */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** consumer index, accessed by the single consumer only */
+    private long head = 0;
+
+    /**
+     * @param capacity maximum number of items; rounded up to a power of 2
+     */
+    public MpscArrayQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int k = 0; k < size; k++) {
+            sequences.set(k, k);
+        }
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * can be called by any thread
+     *
+     * @param item item to add
+     * @return false if the queue is full
+     */
+    public boolean offer(T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        int index;
+        for (;;) {
+            index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false; // the slot is not yet released by the consumer
+            } else {
+                pos = tail.get(); // the slot is taken by another producer
+            }
+        }
+        buffer[index] = item;
+        sequences.set(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * @return the head item, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        return (T) buffer[index];
+    }
+
+    /**
+     * @return removed head item, or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        T item = (T) buffer[index];
+        buffer[index] = null;
+        sequences.lazySet(index, head + buffer.length);
+        head++;
+        return item;
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * @return approximate number of items; exact when called by the consumer and no producer is active
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int) size;
+    }
+}
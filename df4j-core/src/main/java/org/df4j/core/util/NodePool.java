@@ -0,0 +1,84 @@
+package org.df4j.core.util;
+
+import org.df4j.core.tasknode.AsyncAction;
+
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable nodes, for graphs which are built anew for each request.
+ *
+ * A node taken with {@link #acquire()} is either recycled or newly created,
+ * and in both cases is in its initial state, not started.
+ * Finished nodes are returned with {@link #release}, which resets them.
+ * Nodes are kept in a stack, so the recently used ones, likely still in cache, are reused first.
+ * A node must not be used after it is released.
+ *
+ * @param <T> type of nodes
+ */
+public class NodePool<T extends AsyncAction<?>> {
+    private final Supplier<? extends T> factory;
+    private final Object[] stack;
+    private int size = 0;
+    private long createdCount = 0;
+    private long reusedCount = 0;
+
+    /**
+     * @param factory creates a new node when the pool is empty
+     * @param maxSize maximum number of idle nodes kept; extra released nodes are left to the garbage collector
+     */
+    public NodePool(Supplier<? extends T> factory, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must be >= 0");
+        }
+        this.factory = factory;
+        this.stack = new Object[maxSize];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        synchronized (this) {
+            if (size > 0) {
+                size--;
+                T node = (T) stack[size];
+                stack[size] = null;
+                reusedCount++;
+                return node;
+            }
+            createdCount++;
+        }
+        return factory.get();
+    }
+
+    /**
+     * resets the node and keeps it for reuse
+     *
+     * @param node a node which is not started or is stopped
+     * @return false if the pool is full and the node is dropped
+     * @throws IllegalStateException if the node is started and not stopped
+     */
+    public boolean release(T node) {
+        node.reset();
+        synchronized (this) {
+            if (size == stack.length) {
+                return false;
+            }
+            stack[size++] = node;
+            return true;
+        }
+    }
+
+    /**
+     * @return number of idle nodes in the pool
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getCreatedCount() {
+        return createdCount;
+    }
+
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+}
@@ -1,24 +1,64 @@
 package org.df4j.core.util;
 
 import org.df4j.core.boundconnector.permitscalar.ScalarPermitSubscriber;
+import org.reactivestreams.Subscription;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * releases subscribers after given delays.
+ * By default, uses a {@link HashedWheelTimer}; a {@link Timer} is used if passed explicitly.
+ */
 public class TimeSignalPublisher {
+    /** null if wheel is used */
     protected final Timer timer;
+    /** null if timer is used */
+    protected final HashedWheelTimer wheel;
 
     public TimeSignalPublisher(Timer timer) {
         this.timer = timer;
+        this.wheel = null;
     }
 
+    public TimeSignalPublisher(HashedWheelTimer wheel) {
+        this.timer = null;
+        this.wheel = wheel;
+    }
+
+    /**
+     * uses the wheel shared by all publishers created with this constructor
+     */
     public TimeSignalPublisher() {
-        this(new Timer());
+        this(SharedWheel.wheel);
     }
 
-    public void subscribe(ScalarPermitSubscriber sema, long delay) {
+    /**
+     * @param sema subscriber to release
+     * @param delay delay in milliseconds
+     * @return subscription to cancel the release
+     */
+    public Subscription subscribe(ScalarPermitSubscriber sema, long delay) {
+        if (wheel != null) {
+            return wheel.schedule(sema, delay, TimeUnit.MILLISECONDS);
+        }
         Event task = new Event(sema);
         timer.schedule(task, delay);
+        return new Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+        };
+    }
+
+    /** created on first use */
+    private static class SharedWheel {
+        static final HashedWheelTimer wheel = new HashedWheelTimer();
     }
 
     private static class Event extends TimerTask {
@@ -0,0 +1,83 @@
+package org.df4j.core.util.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Executor which keeps chains of nodes on the same core.
+ *
+ * When called from a worker thread of its pool, the task is forked onto the worker's local deque
+ * instead of the shared submission queue, so the successor of a node most likely runs on the same worker,
+ * while idle workers still can steal it.
+ * Optionally, the successor is run inline, until the given depth of nested calls is reached.
+ * Calls from other threads are submitted to the pool as usual.
+ */
+public class AffinityExecutor implements Executor {
+    private static final ThreadLocal<int[]> inlineDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ForkJoinPool pool;
+    private final int maxInlineDepth;
+
+    /**
+     * @param pool the pool to run tasks
+     * @param maxInlineDepth maximum number of nested tasks run inline on a worker thread; 0 means never run inline
+     */
+    public AffinityExecutor(ForkJoinPool pool, int maxInlineDepth) {
+        if (maxInlineDepth < 0) {
+            throw new IllegalArgumentException("maxInlineDepth must be >= 0");
+        }
+        this.pool = pool;
+        this.maxInlineDepth = maxInlineDepth;
+    }
+
+    public AffinityExecutor(ForkJoinPool pool) {
+        this(pool, 0);
+    }
+
+    public AffinityExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Thread currentThread = Thread.currentThread();
+        if (!(currentThread instanceof ForkJoinWorkerThread)
+                || ((ForkJoinWorkerThread) currentThread).getPool() != pool) {
+            pool.execute(command);
+            return;
+        }
+        if (maxInlineDepth > 0) {
+            int[] depth = inlineDepth.get();
+            if (depth[0] < maxInlineDepth) {
+                depth[0]++;
+                try {
+                    command.run();
+                } finally {
+                    depth[0]--;
+                }
+                return;
+            }
+        }
+        ForkJoinTask.adapt(() -> runReporting(command)).fork();
+    }
+
+    /**
+     * a forked task keeps its exception to itself, and nobody joins it;
+     * so the exception is passed to the uncaught exception handler of the worker, which is that of the pool,
+     * as {@link ForkJoinPool#execute(Runnable)} does
+     */
+    private static void runReporting(Runnable command) {
+        try {
+            command.run();
+        } catch (Throwable e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.df4j.core.util.executor;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Thread-safe version of {@link CurrentThreadExecutor}, which runs tasks on the caller's thread
+ * without the risk of stack overflow.
+ *
+ * A task is run inline, until the given number of nested calls is reached on the current thread.
+ * Deeper tasks are passed to the delegate executor, if set, or else are queued in a thread-local queue,
+ * which is drained by the outermost call after its own task completes, normally or not.
+ *
+ * A failure of a queued task does not prevent running the others.
+ * The outermost call rethrows its own task's failure, or else the first failure of a queued task;
+ * other failures are added to it as suppressed.
+ */
+public class TrampolineExecutor implements Executor {
+    public static final int DEFAULT_MAX_DEPTH = 32;
+
+    private final int maxDepth;
+    private final Executor delegate;
+    private final ThreadLocal<Frames> frames = ThreadLocal.withInitial(Frames::new);
+
+    /**
+     * @param maxDepth maximum number of nested tasks run inline
+     * @param delegate executor for tasks beyond maxDepth, or null to queue them on the current thread
+     */
+    public TrampolineExecutor(int maxDepth, Executor delegate) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be >= 1");
+        }
+        this.maxDepth = maxDepth;
+        this.delegate = delegate;
+    }
+
+    public TrampolineExecutor(int maxDepth) {
+        this(maxDepth, null);
+    }
+
+    public TrampolineExecutor() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Frames frames = this.frames.get();
+        if (frames.depth >= maxDepth) {
+            if (delegate != null) {
+                delegate.execute(command);
+            } else {
+                frames.queue.add(command);
+            }
+            return;
+        }
+        frames.depth++;
+        Throwable failure = null;
+        try {
+            command.run();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            frames.depth--;
+            if (frames.depth == 0) {
+                frames.drain(failure);
+            }
+        }
+    }
+
+    private static class Frames {
+        int depth = 0;
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+        /**
+         * @param failure failure of the outermost task, which is being thrown, or null
+         */
+        void drain(Throwable failure) {
+            Throwable first = null;
+            Runnable command;
+            while ((command = queue.poll()) != null) {
+                depth++;
+                try {
+                    command.run();
+                } catch (Throwable e) {
+                    if (failure != null) {
+                        failure.addSuppressed(e);
+                    } else if (first == null) {
+                        first = e;
+                    } else {
+                        first.addSuppressed(e);
+                    }
+                } finally {
+                    depth--;
+                }
+            }
+            if (first instanceof Error) {
+                throw (Error) first;
+            } else if (first instanceof RuntimeException) {
+                throw (RuntimeException) first;
+            } else if (first != null) {
+                throw new RuntimeException(first);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.df4j.core.util.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs each task in a new virtual thread, so that actions which block, e.g. on JDBC calls,
+ * do not occupy a thread of a pool.
+ *
+ * This version is for Java 8: it looks up virtual threads by reflection,
+ * and if they are not available, starts a platform thread per task, like {@link org.df4j.core.tasknode.AsyncProc#newThreadExec}.
+ * Multi-release jar contains a version for Java 21, which uses virtual threads directly.
+ */
+public class VirtualThreadExecutor implements Executor {
+    private static final ThreadFactory virtualThreadFactory = lookupVirtualThreadFactory();
+
+    private final ThreadFactory factory;
+
+    public VirtualThreadExecutor() {
+        if (virtualThreadFactory != null) {
+            factory = virtualThreadFactory;
+        } else {
+            factory = Thread::new;
+        }
+    }
+
+    /**
+     * @return true if tasks are run in virtual threads, false if in platform threads
+     */
+    public static boolean isSupported() {
+        return virtualThreadFactory != null;
+    }
+
+    private static ThreadFactory lookupVirtualThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Exception e) {
+            // before Java 21, or preview features are not enabled
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        factory.newThread(command).start();
+    }
+}
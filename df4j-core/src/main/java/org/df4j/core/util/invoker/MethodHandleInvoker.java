@@ -0,0 +1,91 @@
+package org.df4j.core.util.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * Calls a method through a {@link MethodHandle} converted to generic type
+ * {@code (Object target, Object arg1, ... Object argN)Object}.
+ * Unlike {@link MethodInvoker}, there are no access checks and no copying of the argument array per call,
+ * and exceptions thrown by the method are passed as is, not wrapped in
+ * {@link java.lang.reflect.InvocationTargetException}.
+ *
+ * @param <R> type of the result
+ */
+public class MethodHandleInvoker<R> implements Invoker {
+    private final Object actionObject;
+    private final MethodHandle handle;
+    private final int paramCount;
+    private final boolean returnsValue;
+
+    /**
+     * @param actionObject the object the method is called on (ignored for static methods)
+     * @param handle method handle of generic type, created with {@link #genericHandle(Method)}
+     * @param returnsValue true if the method is not void
+     */
+    public MethodHandleInvoker(Object actionObject, MethodHandle handle, boolean returnsValue) {
+        this.actionObject = actionObject;
+        this.paramCount = handle.type().parameterCount() - 1;
+        if (paramCount > 4) {
+            handle = handle.asSpreader(Object[].class, paramCount);
+        }
+        this.handle = handle;
+        this.returnsValue = returnsValue;
+    }
+
+    public MethodHandleInvoker(Object actionObject, Method actionMethod) throws IllegalAccessException {
+        this(actionObject, genericHandle(actionMethod), !actionMethod.getReturnType().equals(void.class));
+    }
+
+    /**
+     * Makes a method handle which can be shared by invokers for all instances of the declaring class.
+     * Private methods must be made accessible beforehand.
+     *
+     * @param method method to call
+     * @return method handle of type {@code (Object, Object...)Object}, with fixed arity
+     * @throws IllegalAccessException if the method is not accessible
+     */
+    public static MethodHandle genericHandle(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(MethodType.genericMethodType(method.getParameterCount() + 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    public R apply(Object... args) throws Exception {
+        if (args.length != paramCount) {
+            throw new IllegalArgumentException("wrong number of arguments: "+args.length+" instead of "+paramCount);
+        }
+        try {
+            switch (paramCount) {
+                case 0:
+                    return (R) (Object) handle.invokeExact(actionObject);
+                case 1:
+                    return (R) (Object) handle.invokeExact(actionObject, args[0]);
+                case 2:
+                    return (R) (Object) handle.invokeExact(actionObject, args[0], args[1]);
+                case 3:
+                    return (R) (Object) handle.invokeExact(actionObject, args[0], args[1], args[2]);
+                case 4:
+                    return (R) (Object) handle.invokeExact(actionObject, args[0], args[1], args[2], args[3]);
+                default:
+                    return (R) (Object) handle.invokeExact(actionObject, args);
+            }
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    @Override
+    public boolean returnsValue() {
+        return returnsValue;
+    }
+}
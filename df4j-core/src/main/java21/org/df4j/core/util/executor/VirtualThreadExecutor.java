@@ -0,0 +1,32 @@
+package org.df4j.core.util.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs each task in a new virtual thread, so that actions which block, e.g. on JDBC calls,
+ * do not occupy a thread of a pool.
+ *
+ * This version is for Java 21 and later.
+ */
+public class VirtualThreadExecutor implements Executor {
+    private static final ThreadFactory virtualThreadFactory = Thread.ofVirtual().factory();
+
+    private final ThreadFactory factory;
+
+    public VirtualThreadExecutor() {
+        factory = virtualThreadFactory;
+    }
+
+    /**
+     * @return true if tasks are run in virtual threads, false if in platform threads
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        factory.newThread(command).start();
+    }
+}
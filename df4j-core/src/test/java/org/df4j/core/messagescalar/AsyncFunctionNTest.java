@@ -0,0 +1,89 @@
+package org.df4j.core.messagescalar;
+
+import org.df4j.core.simplenode.messagescalar.CompletablePromise;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction0;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction1;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction2;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction4;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncFunctionNTest {
+
+    static class Const extends AsyncFunction0<Integer> {
+        @Override
+        protected Integer apply() {
+            return 137;
+        }
+    }
+
+    static class Negate extends AsyncFunction1<Integer, Integer> {
+        @Override
+        protected Integer apply(Integer arg) {
+            return -arg;
+        }
+    }
+
+    static class Concat extends AsyncFunction2<String, Integer, String> {
+        @Override
+        protected String apply(String arg1, Integer arg2) {
+            return arg1 + arg2;
+        }
+    }
+
+    static class Sum4 extends AsyncFunction4<Integer, Integer, Integer, Integer, Integer> {
+        @Override
+        protected Integer apply(Integer arg1, Integer arg2, Integer arg3, Integer arg4) {
+            return arg1 + arg2 + arg3 + arg4;
+        }
+    }
+
+    @Test
+    public void arityTest() throws Exception {
+        Const c = new Const();
+        c.start();
+        Assert.assertEquals(Integer.valueOf(137), c.get(1, TimeUnit.SECONDS));
+
+        Negate neg = new Negate();
+        neg.start();
+        c.subscribe(neg);
+        Assert.assertEquals(Integer.valueOf(-137), neg.get(1, TimeUnit.SECONDS));
+
+        Concat concat = new Concat();
+        concat.param1.post("x=");
+        neg.subscribe(concat.param2);
+        concat.start();
+        Assert.assertEquals("x=-137", concat.get(1, TimeUnit.SECONDS));
+
+        Sum4 sum = new Sum4();
+        sum.start();
+        sum.param4.post(4);
+        sum.param2.post(2);
+        sum.param1.post(1);
+        Assert.assertFalse(sum.isDone());
+        sum.param3.post(3);
+        Assert.assertEquals(Integer.valueOf(10), sum.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void exceptionTest() throws Exception {
+        AsyncFunction1<Integer, Integer> fail = new AsyncFunction1<Integer, Integer>() {
+            @Override
+            protected Integer apply(Integer arg) throws Exception {
+                throw new IllegalArgumentException(arg.toString());
+            }
+        };
+        CompletablePromise<Integer> result = fail.asyncResult();
+        fail.start();
+        fail.post(1);
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            Assert.fail("exception expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.df4j.core.messagescalar;
+
+import org.df4j.core.simplenode.messagescalar.CompletablePromise;
+import org.df4j.core.tasknode.AsyncProc;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class DeadlineTest {
+
+    @Test
+    public void expired() throws Exception {
+        expired(AsyncProc.directExec);
+    }
+
+    @Test
+    public void expiredWithExecutor() throws Exception {
+        expired(ForkJoinPool.commonPool());
+    }
+
+    @Test
+    public void firedInTime() throws Exception {
+        firedInTime(AsyncProc.directExec);
+    }
+
+    @Test
+    public void firedInTimeWithExecutor() throws Exception {
+        firedInTime(ForkJoinPool.commonPool());
+    }
+
+    private void expired(Executor executor) throws Exception {
+        Sum node = new Sum(executor);
+        CompletablePromise<Integer> source = new CompletablePromise<>();
+        source.subscribe(node.param2);
+        node.setDeadline(20, TimeUnit.MILLISECONDS);
+        node.start();
+        node.param1.post(1);
+        try {
+            node.get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertTrue(node.isStopped());
+        // the subscription is cancelled, so the late argument does not reach the node
+        source.complete(2);
+        Assert.assertNull(node.param2.getCurrent());
+    }
+
+    private void firedInTime(Executor executor) throws Exception {
+        Sum node = new Sum(executor);
+        node.setDeadline(20, TimeUnit.MILLISECONDS);
+        node.start();
+        node.param1.post(1);
+        node.param2.post(2);
+        Assert.assertEquals(Integer.valueOf(3), node.get(1, TimeUnit.SECONDS));
+        Thread.sleep(40);
+        Assert.assertEquals(Integer.valueOf(3), node.get());
+    }
+}
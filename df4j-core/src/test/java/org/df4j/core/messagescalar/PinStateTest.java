@@ -0,0 +1,97 @@
+package org.df4j.core.messagescalar;
+
+import org.df4j.core.simplenode.messagescalar.CompletablePromise;
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagescalar.AllOf;
+import org.df4j.core.tasknode.messagescalar.AsyncSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * checks pin accounting for nodes with more pins than fit in the bitmask,
+ * and for pins turned on concurrently
+ */
+public class PinStateTest {
+
+    @Test
+    public void manyPinsTest() throws InterruptedException, ExecutionException, TimeoutException {
+        int count = 100;
+        ArrayList<CompletablePromise<Integer>> sources = new ArrayList<>();
+        AllOf all = new AllOf();
+        for (int k = 0; k < count; k++) {
+            CompletablePromise<Integer> source = new CompletablePromise<>();
+            sources.add(source);
+            all.registerAsyncResult(source);
+        }
+        all.start();
+        for (int k = count - 1; k > 0; k--) {
+            sources.get(k).complete(k);
+            Assert.assertFalse(all.isDone());
+        }
+        sources.get(0).complete(0);
+        all.asyncResult().get(1, TimeUnit.SECONDS);
+    }
+
+    static class Counter extends AsyncSupplier<Integer> {
+        final ArrayList<Pin> pins = new ArrayList<>();
+        final AtomicInteger fired = new AtomicInteger();
+
+        Counter(int pinCount) {
+            for (int k = 0; k < pinCount; k++) {
+                pins.add(new Pin());
+            }
+        }
+
+        class Pin extends Lock {
+            void open() {
+                turnOn();
+            }
+        }
+
+        @Override
+        public void run() {
+            blockStarted();
+            completeResult(fired.incrementAndGet());
+        }
+    }
+
+    public void concurrentTurnOn(int pinCount) throws Exception {
+        Counter counter = new Counter(pinCount);
+        counter.start(AsyncProc.directExec);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (Counter.Pin pin: counter.pins) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pin.open();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startSignal.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        Assert.assertEquals(Integer.valueOf(1), counter.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, counter.fired.get());
+    }
+
+    @Test
+    public void concurrentTurnOnTest() throws Exception {
+        for (int k = 0; k < 20; k++) {
+            concurrentTurnOn(8);
+            concurrentTurnOn(50);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.df4j.core.messagescalar;
+
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction2;
+
+import java.util.concurrent.Executor;
+
+/**
+ * adds its two arguments; a node with scalar inputs for pooling and deadline tests
+ */
+public class Sum extends AsyncFunction2<Integer, Integer, Integer> {
+
+    public Sum(Executor executor) {
+        setExecutor(executor);
+    }
+
+    public Sum() {
+        this(AsyncProc.directExec);
+    }
+
+    @Override
+    protected Integer apply(Integer arg1, Integer arg2) {
+        return arg1 + arg2;
+    }
+}
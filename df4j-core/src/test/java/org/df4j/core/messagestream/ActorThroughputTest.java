@@ -0,0 +1,60 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ActorThroughputTest {
+    static final int MESSAGES = 1000;
+
+    static class CountingExecutor implements Executor {
+        final AtomicInteger dispatches = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable command) {
+            dispatches.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        }
+    }
+
+    static class Summator extends Actor1<Integer> {
+        long sum = 0;
+
+        @Override
+        protected void runAction(Integer message) {
+            sum += message;
+        }
+    }
+
+    private int dispatchesFor(int throughput) throws Exception {
+        Summator actor = new Summator();
+        actor.setThroughput(throughput);
+        for (int k = 1; k <= MESSAGES; k++) {
+            actor.post(k);
+        }
+        actor.onComplete();
+        CountingExecutor executor = new CountingExecutor();
+        actor.start(executor);
+        actor.asyncResult().get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(MESSAGES * (MESSAGES + 1) / 2, actor.sum);
+        return executor.dispatches.get();
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        // each message, and the end of stream
+        Assert.assertEquals(MESSAGES + 1, dispatchesFor(1));
+        Assert.assertEquals(MESSAGES / 10 + 1, dispatchesFor(10));
+        Assert.assertEquals(1, dispatchesFor(MESSAGES + 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongThroughputTest() {
+        new Summator().setThroughput(0);
+    }
+}
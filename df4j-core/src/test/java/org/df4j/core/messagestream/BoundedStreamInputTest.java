@@ -0,0 +1,97 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.BoundedStreamInput;
+import org.df4j.core.boundconnector.messagestream.BoundedStreamInput.OverflowStrategy;
+import org.df4j.core.tasknode.AsyncAction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedStreamInputTest {
+
+    private BoundedStreamInput<Integer> fill(OverflowStrategy strategy, int count) {
+        // the current token and 3 waiting ones
+        BoundedStreamInput<Integer> input = new BoundedStreamInput<>(new AsyncAction<Void>(), 3, strategy);
+        for (int k = 0; k < count; k++) {
+            input.post(k);
+        }
+        return input;
+    }
+
+    private List<Integer> drain(BoundedStreamInput<Integer> input) {
+        ArrayList<Integer> res = new ArrayList<>();
+        while (input.hasNext()) {
+            res.add(input.current());
+            input.purge();
+        }
+        return res;
+    }
+
+    @Test
+    public void dropOldest() {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.DROP_OLDEST, 6);
+        Assert.assertEquals(Arrays.asList(0, 3, 4, 5), drain(input));
+        Assert.assertEquals(2, input.getOverflowCount());
+        Assert.assertEquals(2, input.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewest() {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.DROP_NEWEST, 6);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), drain(input));
+        Assert.assertEquals(2, input.getOverflowCount());
+        Assert.assertEquals(2, input.getDroppedCount());
+    }
+
+    @Test
+    public void conflate() {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.CONFLATE, 6);
+        // 4 replaced 1, 2, 3, and then 5 fitted in
+        Assert.assertEquals(Arrays.asList(0, 4, 5), drain(input));
+        Assert.assertEquals(1, input.getOverflowCount());
+        Assert.assertEquals(3, input.getDroppedCount());
+    }
+
+    @Test
+    public void fail() {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.FAIL, 4);
+        try {
+            input.post(4);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+        Assert.assertEquals(1, input.getOverflowCount());
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), drain(input));
+    }
+
+    @Test
+    public void postAllWithinCapacity() {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.DROP_NEWEST, 0);
+        input.postAll(Arrays.asList(0, 1, 2, 3, 4));
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), drain(input));
+        Assert.assertEquals(1, input.getDroppedCount());
+    }
+
+    @Test
+    public void block() throws InterruptedException {
+        BoundedStreamInput<Integer> input = fill(OverflowStrategy.BLOCK, 4);
+        CountDownLatch posted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            input.post(4);
+            posted.countDown();
+        });
+        producer.start();
+        Assert.assertFalse(posted.await(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Integer.valueOf(0), input.current());
+        input.purge();
+        Assert.assertTrue(posted.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4), drain(input));
+        Assert.assertEquals(1, input.getBlockedCount());
+        Assert.assertEquals(0, input.getDroppedCount());
+    }
+}
@@ -0,0 +1,119 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.ConcurrentStreamInput;
+import org.df4j.core.boundconnector.messagestream.StreamInput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentStreamInputTest {
+    static final int PRODUCERS = 8;
+    static final int MESSAGES = 10000;
+
+    /**
+     * checks that messages from each producer are received in order
+     */
+    static class Collector extends Actor1<int[]> {
+        int[] lastReceived = new int[PRODUCERS];
+        int total = 0;
+
+        @Override
+        protected StreamInput<int[]> createMainInput() {
+            return new ConcurrentStreamInput<>(this, PRODUCERS * MESSAGES);
+        }
+
+        @Override
+        protected void runAction(int[] message) {
+            int producer = message[0];
+            int seq = message[1];
+            Assert.assertEquals(lastReceived[producer] + 1, seq);
+            lastReceived[producer] = seq;
+            total++;
+        }
+    }
+
+    @Test
+    public void manyProducersTest() throws Exception {
+        Collector collector = new Collector();
+        collector.start();
+        ArrayList<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int k = 1; k <= MESSAGES; k++) {
+                    collector.post(new int[]{producer, k});
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread thread: producers) {
+            thread.join();
+        }
+        collector.onComplete();
+        collector.asyncResult().get(2, TimeUnit.SECONDS);
+        Assert.assertEquals(PRODUCERS * MESSAGES, collector.total);
+    }
+
+    @Test
+    public void overflowTest() {
+        ConcurrentStreamInput<Integer> input = new ConcurrentStreamInput<>(new AsyncAction<Void>(), 4);
+        for (int k = 0; k < 4; k++) {
+            input.post(k);
+        }
+        try {
+            input.post(4);
+            Assert.fail("overflow not detected");
+        } catch (IllegalStateException e) {
+        }
+        Assert.assertTrue(input.hasNext());
+        Assert.assertEquals(Integer.valueOf(0), input.current());
+        input.purge();
+        input.post(4);
+        for (int k = 1; k <= 4; k++) {
+            Assert.assertEquals(Integer.valueOf(k), input.current());
+            input.purge();
+        }
+        Assert.assertFalse(input.hasNext());
+        Assert.assertTrue(input.isBlocked());
+        input.onComplete();
+        Assert.assertFalse(input.isBlocked());
+        Assert.assertTrue(input.isClosed());
+    }
+
+    static class PushbackInput extends ConcurrentStreamInput<Integer> {
+        PushbackInput() {
+            super(new AsyncAction<Void>(), 4);
+        }
+
+        @Override
+        public void pushback(Integer value) {
+            super.pushback(value);
+        }
+    }
+
+    @Test
+    public void pushbackTest() {
+        PushbackInput input = new PushbackInput();
+        input.post(1);
+        Assert.assertEquals(Integer.valueOf(1), input.current());
+        input.pushback(0);
+        try {
+            input.pushback(-1);
+            Assert.fail("second pushback not detected");
+        } catch (IllegalStateException e) {
+        }
+        input.purge();
+        for (int k = 0; k <= 1; k++) {
+            Assert.assertFalse(input.isBlocked());
+            Assert.assertEquals(Integer.valueOf(k), input.current());
+            input.purge();
+        }
+        Assert.assertFalse(input.hasNext());
+        Assert.assertTrue(input.isBlocked());
+    }
+}
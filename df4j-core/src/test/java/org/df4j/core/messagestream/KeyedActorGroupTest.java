@@ -0,0 +1,74 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.tasknode.messagestream.KeyedActorGroup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class KeyedActorGroupTest {
+    static final int KEYS = 64;
+    static final int MESSAGES = 10000;
+
+    /** message is {key, sequence number within the key} */
+    static class Accounts extends KeyedActorGroup<Integer, int[]> {
+        final Map<Integer, List<Integer>> received = new ConcurrentHashMap<>();
+
+        Accounts(int shardCount, ExecutorService executor) {
+            super(shardCount, (int[] message) -> message[0], executor);
+        }
+
+        @Override
+        protected void process(Integer key, int[] message) {
+            received.computeIfAbsent(key, (k) -> new ArrayList<>()).add(message[1]);
+        }
+    }
+
+    @Test
+    public void perKeyOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Accounts group = new Accounts(8, executor);
+            group.start();
+            int[] sequences = new int[KEYS];
+            for (int k = 0; k < MESSAGES; k++) {
+                int key = (k * 31) % KEYS;
+                group.post(new int[]{key, sequences[key]++});
+            }
+            group.onComplete();
+            group.asyncResult().get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(KEYS, group.received.size());
+            for (int key = 0; key < KEYS; key++) {
+                List<Integer> list = group.received.get(key);
+                Assert.assertEquals(sequences[key], list.size());
+                for (int k = 0; k < list.size(); k++) {
+                    Assert.assertEquals(Integer.valueOf(k), list.get(k));
+                }
+            }
+            long total = 0;
+            for (long count: group.getPostedCounts()) {
+                total += count;
+            }
+            Assert.assertEquals(MESSAGES, total);
+            Assert.assertEquals(1.0, group.getSkew(), 0.01);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void skew() {
+        Accounts group = new Accounts(4, null);
+        for (int k = 0; k < 100; k++) {
+            group.post(new int[]{0, k});
+        }
+        // all messages went to one shard of 4
+        Assert.assertEquals(4.0, group.getSkew(), 0.01);
+    }
+}
@@ -0,0 +1,105 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.MulticastStreamOutput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MulticastStreamOutputTest {
+    static final int MESSAGES = 100000;
+
+    static class Counter implements Subscriber<Integer> {
+        Subscription subscription;
+        int count = 0;
+        int last = -1;
+        boolean ordered = true;
+        boolean completed = false;
+        int cancelAfter;
+
+        Counter(int cancelAfter) {
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            ordered &= item > last;
+            last = item;
+            count++;
+            if (count == cancelAfter) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    public void cancelInOnNextTest() {
+        MulticastStreamOutput<Integer> output = new MulticastStreamOutput<>(new AsyncAction<Void>());
+        Counter first = new Counter(3);
+        Counter second = new Counter(-1);
+        output.subscribe(first);
+        output.subscribe(second);
+        for (int k = 0; k < 10; k++) {
+            output.post(k);
+        }
+        output.complete();
+        Assert.assertEquals(3, first.count);
+        Assert.assertFalse(first.completed);
+        Assert.assertEquals(10, second.count);
+        Assert.assertTrue(second.completed);
+        Counter late = new Counter(-1);
+        output.subscribe(late);
+        Assert.assertTrue(late.completed);
+    }
+
+    /**
+     * subscriptions change while tokens are posted
+     */
+    @Test
+    public void concurrentSubscribeTest() throws Exception {
+        MulticastStreamOutput<Integer> output = new MulticastStreamOutput<>(new AsyncAction<Void>());
+        Counter permanent = new Counter(-1);
+        output.subscribe(permanent);
+        AtomicBoolean done = new AtomicBoolean();
+        Throwable[] error = new Throwable[1];
+        Thread subscriber = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    Counter temporary = new Counter(-1);
+                    output.subscribe(temporary);
+                    temporary.subscription.cancel();
+                }
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        });
+        subscriber.start();
+        for (int k = 0; k < MESSAGES; k++) {
+            output.post(k);
+        }
+        done.set(true);
+        subscriber.join();
+        output.complete();
+        Assert.assertNull(error[0]);
+        Assert.assertEquals(MESSAGES, permanent.count);
+        Assert.assertTrue(permanent.ordered);
+        Assert.assertTrue(permanent.completed);
+    }
+}
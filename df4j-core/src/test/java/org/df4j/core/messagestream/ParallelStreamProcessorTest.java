@@ -0,0 +1,117 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.tasknode.messagestream.ParallelStreamProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelStreamProcessorTest {
+    static final int MESSAGES = 200;
+    static final int PARALLELISM = 4;
+
+    static class Square extends ParallelStreamProcessor<Integer, Integer> {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        Square(boolean ordered, ExecutorService workers) {
+            super(PARALLELISM, ordered, workers);
+        }
+
+        @Override
+        protected Integer process(Integer message) throws Exception {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            running.decrementAndGet();
+            if (message % 10 == 9) {
+                return null;
+            }
+            return message * message;
+        }
+    }
+
+    static class Collector implements Subscriber<Integer> {
+        final ArrayList<Integer> received = new ArrayList<>();
+        final CompletableFuture<ArrayList<Integer>> done = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(received);
+        }
+    }
+
+    private ArrayList<Integer> run(Square processor) throws Exception {
+        Collector collector = new Collector();
+        processor.subscribe(collector);
+        processor.start();
+        for (int k = 0; k < MESSAGES; k++) {
+            processor.post(k);
+        }
+        processor.onComplete();
+        ArrayList<Integer> res = collector.done.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(processor.asyncResult().isDone());
+        Assert.assertTrue(processor.maxRunning.get() > 1);
+        Assert.assertTrue(processor.maxRunning.get() <= PARALLELISM);
+        Assert.assertEquals(MESSAGES - MESSAGES / 10, res.size());
+        return res;
+    }
+
+    @Test
+    public void ordered() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(PARALLELISM * 2);
+        try {
+            ArrayList<Integer> res = run(new Square(true, workers));
+            int k = 0;
+            for (Integer item: res) {
+                if (k % 10 == 9) {
+                    k++;
+                }
+                Assert.assertEquals(Integer.valueOf(k * k), item);
+                k++;
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    public void unordered() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(PARALLELISM * 2);
+        try {
+            ArrayList<Integer> res = run(new Square(false, workers));
+            HashSet<Integer> expected = new HashSet<>();
+            for (int k = 0; k < MESSAGES; k++) {
+                if (k % 10 != 9) {
+                    expected.add(k * k);
+                }
+            }
+            Assert.assertEquals(expected, new HashSet<>(res));
+        } finally {
+            workers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.df4j.core.messagestream;
+
+import org.df4j.core.boundconnector.messagestream.ConcurrentStreamInput;
+import org.df4j.core.boundconnector.messagestream.MulticastStreamOutput;
+import org.df4j.core.boundconnector.messagestream.StreamInput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class PostAllTest {
+    static final int MESSAGES = 100;
+
+    static class Collector extends Actor1<Integer> {
+        final ArrayList<Integer> received = new ArrayList<>();
+        final boolean concurrent;
+
+        Collector(boolean concurrent) {
+            this.concurrent = concurrent;
+        }
+
+        @Override
+        protected StreamInput<Integer> createMainInput() {
+            return concurrent ? new ConcurrentStreamInput<>(this) : super.createMainInput();
+        }
+
+        @Override
+        protected void runAction(Integer message) {
+            received.add(message);
+        }
+    }
+
+    private Integer[] range(int from, int to) {
+        Integer[] res = new Integer[to - from];
+        for (int k = from; k < to; k++) {
+            res[k - from] = k;
+        }
+        return res;
+    }
+
+    private void checkBatch(boolean concurrent) throws Exception {
+        Collector collector = new Collector(concurrent);
+        int[] dispatches = new int[1];
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        Executor executor = (task) -> {
+            dispatches[0]++;
+            tasks.add(task);
+        };
+        collector.start(executor);
+        collector.postAll(Arrays.asList(range(0, MESSAGES)));
+        collector.postAll(range(0, MESSAGES * 2), MESSAGES, MESSAGES);
+        // the whole batch fired the actor once
+        Assert.assertEquals(1, dispatches[0]);
+        collector.onComplete();
+        collector.setExecutor(Runnable::run);
+        tasks.get(0).run();
+        collector.asyncResult().get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList(range(0, MESSAGES * 2)), collector.received);
+    }
+
+    @Test
+    public void streamInputTest() throws Exception {
+        checkBatch(false);
+    }
+
+    @Test
+    public void concurrentStreamInputTest() throws Exception {
+        checkBatch(true);
+    }
+
+    @Test
+    public void nullInBatchTest() {
+        Collector collector = new Collector(false);
+        try {
+            collector.postAll(Arrays.asList(1, null, 3));
+            Assert.fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+        }
+        // the batch is rejected as a whole
+        Assert.assertFalse(collector.isClosed());
+        Assert.assertTrue(collector.received.isEmpty());
+    }
+
+    @Test
+    public void outputTest() throws Exception {
+        MulticastStreamOutput<Integer> output = new MulticastStreamOutput<>(new AsyncAction<Void>());
+        Collector collector1 = new Collector(false);
+        Collector collector2 = new Collector(true);
+        output.subscribe(collector1);
+        output.subscribe(collector2);
+        collector1.start();
+        collector2.start();
+        output.postAll(Arrays.asList(range(0, MESSAGES)));
+        output.complete();
+        collector1.asyncResult().get(1, TimeUnit.SECONDS);
+        collector2.asyncResult().get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList(range(0, MESSAGES)), collector1.received);
+        Assert.assertEquals(Arrays.asList(range(0, MESSAGES)), collector2.received);
+    }
+}
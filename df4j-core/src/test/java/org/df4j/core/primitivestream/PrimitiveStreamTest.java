@@ -0,0 +1,122 @@
+package org.df4j.core.primitivestream;
+
+import org.df4j.core.boundconnector.primitivestream.DoubleStreamInput;
+import org.df4j.core.boundconnector.primitivestream.LongStreamInput;
+import org.df4j.core.boundconnector.primitivestream.LongStreamSubscriber;
+import org.df4j.core.tasknode.AsyncAction;
+import org.df4j.core.tasknode.messagestream.Actor;
+import org.df4j.core.tasknode.messagestream.LongStreamProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class PrimitiveStreamTest {
+    static final int MESSAGES = 10000;
+
+    static class Twice extends LongStreamProcessor {
+        @Override
+        protected long process(long value) {
+            return value * 2;
+        }
+    }
+
+    static class LongSummator extends Actor implements LongStreamSubscriber {
+        final LongStreamInput input = new LongStreamInput(this);
+        long sum = 0;
+
+        @Override
+        public void post(long value) {
+            input.post(value);
+        }
+
+        @Override
+        public void postFailure(Throwable ex) {
+            input.postFailure(ex);
+        }
+
+        @Override
+        public void onComplete() {
+            input.onComplete();
+        }
+
+        @Override
+        protected void runAction() {
+            if (input.hasNext()) {
+                sum += input.current();
+            } else if (input.getException() != null) {
+                result.completeExceptionally(input.getException());
+                stop();
+            } else {
+                stop();
+            }
+        }
+    }
+
+    @Test
+    public void pipelineTest() throws Exception {
+        Twice first = new Twice();
+        first.start();
+        Twice second = new Twice();
+        second.start();
+        first.subscribe(second);
+        LongSummator sink = new LongSummator();
+        sink.start();
+        second.subscribe(sink);
+        for (long k = 0; k < MESSAGES; k++) {
+            first.post(k);
+        }
+        first.onComplete();
+        sink.asyncResult().get(2, TimeUnit.SECONDS);
+        Assert.assertEquals(4L * MESSAGES * (MESSAGES - 1) / 2, sink.sum);
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        Twice first = new Twice();
+        first.start();
+        LongSummator sink = new LongSummator();
+        sink.start();
+        first.subscribe(sink);
+        first.post(1);
+        first.postFailure(new IllegalStateException());
+        try {
+            sink.asyncResult().get(2, TimeUnit.SECONDS);
+            Assert.fail("exception expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(2, sink.sum);
+    }
+
+    /**
+     * the ring buffer wraps around and grows, keeping order of tokens
+     */
+    @Test
+    public void ringBufferTest() {
+        DoubleStreamInput input = new DoubleStreamInput(new AsyncAction<Void>(), 4);
+        Assert.assertTrue(input.isBlocked());
+        double next = 0;
+        double expected = 0;
+        for (int round = 1; round <= 10; round++) {
+            for (int k = 0; k < round; k++) {
+                input.post(next++);
+            }
+            Assert.assertFalse(input.isBlocked());
+            for (int k = 0; k < round / 2 + 1; k++) {
+                Assert.assertEquals(expected++, input.current(), 0.0);
+                input.purge();
+            }
+        }
+        while (input.hasNext()) {
+            Assert.assertEquals(expected++, input.current(), 0.0);
+            input.purge();
+        }
+        Assert.assertEquals(next, expected, 0.0);
+        Assert.assertTrue(input.isBlocked());
+        input.onComplete();
+        Assert.assertFalse(input.isBlocked());
+        Assert.assertTrue(input.isClosed());
+    }
+}
@@ -0,0 +1,139 @@
+package org.df4j.core.reactivestream;
+
+import org.df4j.core.boundconnector.reactivestream.ReactiveBalancedOutput;
+import org.df4j.core.boundconnector.reactivestream.ReactiveBalancedOutput.Policy;
+import org.df4j.core.tasknode.AsyncAction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReactiveBalancedOutputTest {
+
+    static class Worker implements Subscriber<Integer> {
+        final ArrayList<Integer> received = new ArrayList<>();
+        Subscription subscription;
+        boolean completed = false;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private Worker[] subscribe(ReactiveBalancedOutput<Integer> output, long... demands) {
+        Worker[] workers = new Worker[demands.length];
+        for (int k = 0; k < demands.length; k++) {
+            workers[k] = new Worker();
+            output.subscribe(workers[k]);
+            if (demands[k] > 0) {
+                workers[k].subscription.request(demands[k]);
+            }
+        }
+        return workers;
+    }
+
+    @Test
+    public void roundRobin() {
+        ReactiveBalancedOutput<Integer> output = new ReactiveBalancedOutput<>(new AsyncAction<Void>());
+        Worker[] workers = subscribe(output, 10, 1, 10);
+        for (int k = 0; k < 7; k++) {
+            output.post(k);
+        }
+        // the second worker has no demand after the first round
+        Assert.assertEquals(Arrays.asList(0, 3, 5), workers[0].received);
+        Assert.assertEquals(Arrays.asList(1), workers[1].received);
+        Assert.assertEquals(Arrays.asList(2, 4, 6), workers[2].received);
+    }
+
+    @Test
+    public void leastLoaded() {
+        ReactiveBalancedOutput<Integer> output = new ReactiveBalancedOutput<>(new AsyncAction<Void>(), Policy.LEAST_LOADED);
+        Worker[] workers = subscribe(output, 5, 2);
+        for (int k = 0; k < 3; k++) {
+            output.post(k);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2), workers[0].received);
+        Assert.assertEquals(0, workers[1].received.size());
+        // both have demand 2 now, and ties are resolved in turn
+        output.post(3);
+        output.post(4);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 4), workers[0].received);
+        Assert.assertEquals(Arrays.asList(3), workers[1].received);
+    }
+
+    /**
+     * @return key -> index of the worker which received tokens with that key
+     */
+    private Map<Integer, Integer> owners(Worker[] workers) {
+        Map<Integer, Integer> owners = new HashMap<>();
+        for (int w = 0; w < workers.length; w++) {
+            for (Integer item: workers[w].received) {
+                Integer previous = owners.put(item % 10, w);
+                // each key is served by a single worker
+                Assert.assertTrue(previous == null || previous == w);
+            }
+            workers[w].received.clear();
+        }
+        return owners;
+    }
+
+    @Test
+    public void consistentHash() {
+        ReactiveBalancedOutput<Integer> output = new ReactiveBalancedOutput<>(new AsyncAction<Void>(), (Integer k) -> k % 10);
+        Worker[] workers = subscribe(output, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        for (int k = 0; k < 100; k++) {
+            output.post(k);
+        }
+        Map<Integer, Integer> before = owners(workers);
+        Assert.assertEquals(10, before.size());
+        workers[1].subscription.cancel();
+        for (int k = 0; k < 100; k++) {
+            output.post(k);
+        }
+        Map<Integer, Integer> after = owners(workers);
+        Assert.assertEquals(10, after.size());
+        for (Map.Entry<Integer, Integer> entry: before.entrySet()) {
+            if (entry.getValue() == 1) {
+                Assert.assertNotEquals(Integer.valueOf(1), after.get(entry.getKey()));
+            } else {
+                // keys of the remaining workers stay in place
+                Assert.assertEquals(entry.getValue(), after.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void pinFollowsDemand() {
+        ReactiveBalancedOutput<Integer> output = new ReactiveBalancedOutput<>(new AsyncAction<Void>(), (Integer k) -> k);
+        Assert.assertTrue(output.isBlocked());
+        Worker[] workers = subscribe(output, 1, 0);
+        // the target of the next token is not known, so all workers must have demand
+        Assert.assertTrue(output.isBlocked());
+        workers[1].subscription.request(1);
+        Assert.assertFalse(output.isBlocked());
+        output.complete();
+        Assert.assertTrue(output.isBlocked());
+        Assert.assertTrue(workers[0].completed);
+        Assert.assertTrue(workers[1].completed);
+    }
+}
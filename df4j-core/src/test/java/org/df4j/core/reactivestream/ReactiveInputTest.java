@@ -0,0 +1,93 @@
+package org.df4j.core.reactivestream;
+
+import org.df4j.core.boundconnector.reactivestream.ReactiveInput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ReactiveInputTest {
+
+    static class RecordingSubscription implements Subscription {
+        final ArrayList<Long> requests = new ArrayList<>();
+        boolean cancelled = false;
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private RecordingSubscription consume(ReactiveInput<Integer> input, int count) {
+        RecordingSubscription subscription = new RecordingSubscription();
+        input.onSubscribe(subscription);
+        int posted = 0;
+        for (int k = 0; k < count; k++) {
+            // keep the publisher within the demand
+            while (posted < count && posted - k < 8) {
+                input.post(posted++);
+            }
+            Assert.assertEquals(Integer.valueOf(k), input.current());
+            input.purge();
+        }
+        return subscription;
+    }
+
+    @Test
+    public void defaultRequestsEachToken() {
+        ReactiveInput<Integer> input = new ReactiveInput<>(new AsyncAction<Void>(), 8);
+        RecordingSubscription subscription = consume(input, 16);
+        Assert.assertEquals(17, subscription.requests.size());
+        Assert.assertEquals(Long.valueOf(8), subscription.requests.get(0));
+        for (int k = 1; k < subscription.requests.size(); k++) {
+            Assert.assertEquals(Long.valueOf(1), subscription.requests.get(k));
+        }
+    }
+
+    @Test
+    public void batchedRequests() {
+        ReactiveInput<Integer> input = new ReactiveInput<>(new AsyncAction<Void>(), 8, 4);
+        RecordingSubscription subscription = consume(input, 16);
+        Assert.assertEquals(5, subscription.requests.size());
+        Assert.assertEquals(Long.valueOf(8), subscription.requests.get(0));
+        for (int k = 1; k < subscription.requests.size(); k++) {
+            Assert.assertEquals(Long.valueOf(4), subscription.requests.get(k));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchGreaterThanCapacity() {
+        new ReactiveInput<Integer>(new AsyncAction<Void>(), 4, 5);
+    }
+
+    @Test
+    public void batchOverCapacityRejected() {
+        ReactiveInput<Integer> input = new ReactiveInput<>(new AsyncAction<Void>(), 4);
+        input.onSubscribe(new RecordingSubscription());
+        input.post(0);
+        try {
+            input.postAll(Arrays.asList(1, 2, 3, 4, 5));
+            Assert.fail("overflow not detected");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            input.postAll(new Integer[]{1, 2, 3, 4, 5}, 0, 5);
+            Assert.fail("overflow not detected");
+        } catch (IllegalStateException e) {
+        }
+        input.postAll(Arrays.asList(1, 2, 3, 4));
+        for (int k = 0; k <= 4; k++) {
+            Assert.assertEquals(Integer.valueOf(k), input.current());
+            input.purge();
+        }
+        Assert.assertFalse(input.hasNext());
+    }
+}
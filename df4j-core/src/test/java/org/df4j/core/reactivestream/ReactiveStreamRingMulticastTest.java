@@ -0,0 +1,141 @@
+package org.df4j.core.reactivestream;
+
+import org.df4j.core.boundconnector.reactivestream.ReactiveRingMulticastOutput;
+import org.df4j.core.tasknode.AsyncAction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReactiveStreamRingMulticastTest extends ReactiveStreamExampleBase {
+
+    public void testSourceToSink(int sourceNumber, int sinkNumber) throws Exception {
+        Source<Long> from = new RingMulticastSource(this, sourceNumber);
+        Sink to1 = new Sink(this, sinkNumber, "sink1");
+        from.subscribe(to1);
+        Sink to2 = new Sink(this, sinkNumber, "sink2");
+        from.subscribe(to2);
+        super.start(); // after all components created
+        from.start();
+        asyncResult().get(1, TimeUnit.SECONDS);
+        sinkNumber = Math.min(sourceNumber, sinkNumber);
+        assertEquals(sinkNumber, to1.received);
+        assertEquals(sinkNumber, to2.received);
+    }
+
+    static class ManualSubscriber implements Subscriber<Integer> {
+        Subscription subscription;
+        ArrayList<Integer> received = new ArrayList<>();
+        boolean completed = false;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    /**
+     * the slowest subscriber blocks the pin when the ring is full
+     */
+    @Test
+    public void backpressureTest() {
+        ReactiveRingMulticastOutput<Integer> output = new ReactiveRingMulticastOutput<>(new AsyncAction<Void>(), 4);
+        Assert.assertTrue(output.isBlocked());
+        ManualSubscriber fast = new ManualSubscriber();
+        ManualSubscriber slow = new ManualSubscriber();
+        output.subscribe(fast);
+        output.subscribe(slow);
+        Assert.assertFalse(output.isBlocked());
+        fast.subscription.request(Long.MAX_VALUE);
+        slow.subscription.request(1);
+        for (int k = 0; k < 5; k++) {
+            output.post(k);
+        }
+        // slow has received 1 value, so 4 remain in the ring
+        Assert.assertTrue(output.isBlocked());
+        Assert.assertEquals(5, fast.received.size());
+        Assert.assertEquals(1, slow.received.size());
+        slow.subscription.request(2);
+        Assert.assertFalse(output.isBlocked());
+        Assert.assertEquals(3, slow.received.size());
+        output.post(5);
+        output.complete();
+        Assert.assertTrue(fast.completed);
+        Assert.assertFalse(slow.completed);
+        slow.subscription.request(10);
+        Assert.assertTrue(slow.completed);
+        Assert.assertEquals(fast.received, slow.received);
+    }
+
+    /**
+     * a cancelled subscriber does not hold the ring
+     */
+    @Test
+    public void cancelTest() {
+        ReactiveRingMulticastOutput<Integer> output = new ReactiveRingMulticastOutput<>(new AsyncAction<Void>(), 2);
+        ManualSubscriber active = new ManualSubscriber();
+        ManualSubscriber idle = new ManualSubscriber();
+        output.subscribe(active);
+        output.subscribe(idle);
+        active.subscription.request(Long.MAX_VALUE);
+        output.post(0);
+        output.post(1);
+        Assert.assertTrue(output.isBlocked());
+        idle.subscription.cancel();
+        Assert.assertFalse(output.isBlocked());
+        output.post(2);
+        Assert.assertEquals(3, active.received.size());
+        Assert.assertTrue(idle.received.isEmpty());
+    }
+
+    /**
+     * the pin is off when the last subscriber cancels, and the source stops
+     */
+    @Test
+    public void allCancelledTest() throws Exception {
+        RingMulticastSource source = new RingMulticastSource(Long.MAX_VALUE);
+        Subscription[] subscription = new Subscription[1];
+        source.pub.subscribe(new Subscriber<Long>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(Long item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        Assert.assertFalse(source.pub.isBlocked());
+        subscription[0].cancel();
+        Assert.assertTrue(source.pub.isBlocked());
+        Assert.assertTrue(source.isStopped());
+        source.asyncResult().get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,50 @@
+package org.df4j.core.reactivestream;
+
+import org.df4j.core.boundconnector.reactivestream.ReactiveRingMulticastOutput;
+import org.df4j.core.tasknode.Action;
+import org.df4j.core.tasknode.messagescalar.AllOf;
+import org.reactivestreams.Subscriber;
+
+/**
+ * emits totalNumber of Longs through a small ring and closes the stream
+ */
+public class RingMulticastSource extends Source<Long> {
+    protected ReactiveRingMulticastOutput<Long> pub = new ReactiveRingMulticastOutput<Long>(this, 2) {
+        @Override
+        protected void allCancelled() {
+            // nobody would receive the rest
+            stop();
+        }
+    };
+    long val = 0;
+
+    public RingMulticastSource() {
+    }
+
+    public RingMulticastSource(long totalNumber) {
+        this.val = totalNumber;
+    }
+
+    public RingMulticastSource(AllOf parent, long totalNumber) {
+        super(parent);
+        this.val = totalNumber;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Long> subscriber) {
+        pub.subscribe(subscriber);
+    }
+
+    @Action
+    public void act() {
+        if (val == 0) {
+            ReactiveStreamMulticastTest.println("RingMulticastSource.pub.complete()");
+            pub.complete();
+            stop();
+        } else {
+            ReactiveStreamMulticastTest.println("RingMulticastSource.pub.post "+ val);
+            pub.post(val);
+            val--;
+        }
+    }
+}
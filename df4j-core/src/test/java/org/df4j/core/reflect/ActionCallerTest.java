@@ -101,9 +101,43 @@ public class ActionCallerTest {
         Assert.assertEquals(137, res2);
     }
 
+    /**
+     * action descriptors are cached per class, but invokers are bound to their instance
+     */
+    @Test
+    public void sameClassInstances() throws Exception {
+        Invoker ac1 = ActionCaller.findAction(new WithFieldAndMethod((Function<Integer, Integer>) (v)->v*2), 1);
+        Invoker ac2 = ActionCaller.findAction(new WithFieldAndMethod(), 1);
+        Invoker ac3 = ActionCaller.findAction(new WithFieldAndMethod((Function<Integer, Integer>) (v)->v*3), 1);
+        Assert.assertEquals(FOUR, ac1.apply(TWO));
+        Assert.assertEquals(ONE, ac2.apply(TWO));
+        Assert.assertEquals(Integer.valueOf(6), ac3.apply(TWO));
+        Counter c1 = new Counter();
+        Counter c2 = new Counter();
+        ActionCaller.findAction(c1, 0).apply();
+        ActionCaller.findAction(c2, 0).apply();
+        ActionCaller.findAction(c2, 0).apply();
+        Assert.assertEquals(1, c1.count);
+        Assert.assertEquals(2, c2.count);
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void wrongParamCount() throws NoSuchMethodException {
+        ActionCaller.findAction(new Counter(), 0);
+        ActionCaller.findAction(new Counter(), 1);
+    }
 
     static class Empty {}
 
+    static class Counter {
+        int count;
+
+        @Action
+        private void inc() {
+            count++;
+        }
+    }
+
     static class WithField_1 {
         @Action
         final FunctionInvoker invoker;
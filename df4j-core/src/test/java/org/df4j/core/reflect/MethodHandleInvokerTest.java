@@ -0,0 +1,81 @@
+package org.df4j.core.reflect;
+
+import org.df4j.core.util.invoker.MethodHandleInvoker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class MethodHandleInvokerTest {
+
+    @Test
+    public void arityTest() throws Exception {
+        Methods target = new Methods();
+        Assert.assertEquals(0, invoker(target, "sum0").apply());
+        Assert.assertEquals(1, invoker(target, "sum1").apply(1));
+        Assert.assertEquals(3, invoker(target, "sum2").apply(1, 2));
+        Assert.assertEquals(15, invoker(target, "sum5").apply(1, 2, 3, 4, 5));
+        Assert.assertEquals(3, invoker(null, "staticSum2").apply(1, 2));
+    }
+
+    @Test
+    public void voidTest() throws Exception {
+        Methods target = new Methods();
+        MethodHandleInvoker<Object> invoker = invoker(target, "store");
+        Assert.assertFalse(invoker.returnsValue());
+        Assert.assertNull(invoker.apply("x"));
+        Assert.assertEquals("x", target.stored);
+    }
+
+    @Test(expected = IOException.class)
+    public void exceptionNotWrappedTest() throws Exception {
+        invoker(new Methods(), "fail").apply();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongArgCountTest() throws Exception {
+        invoker(new Methods(), "sum2").apply(1);
+    }
+
+    private static MethodHandleInvoker<Object> invoker(Object target, String name) throws Exception {
+        for (java.lang.reflect.Method method: Methods.class.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                method.setAccessible(true);
+                return new MethodHandleInvoker<>(target, method);
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    static class Methods {
+        Object stored;
+
+        private int sum0() {
+            return 0;
+        }
+
+        private int sum1(int a) {
+            return a;
+        }
+
+        private int sum2(Integer a, int b) {
+            return a + b;
+        }
+
+        private int sum5(int a, int b, int c, int d, int e) {
+            return a + b + c + d + e;
+        }
+
+        static int staticSum2(int a, int b) {
+            return a + b;
+        }
+
+        private void store(String value) {
+            stored = value;
+        }
+
+        private void fail() throws IOException {
+            throw new IOException();
+        }
+    }
+}
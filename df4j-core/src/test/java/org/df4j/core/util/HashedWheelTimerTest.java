@@ -0,0 +1,110 @@
+package org.df4j.core.util;
+
+import org.df4j.core.boundconnector.permitscalar.ScalarPermitSubscriber;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashedWheelTimerTest {
+    // small wheel, so that timeouts take several rounds
+    HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, null);
+
+    @After
+    public void stop() {
+        timer.stop();
+    }
+
+    @Test
+    public void delays() throws InterruptedException {
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int k = 0; k < count; k++) {
+            long delay = k % 50;
+            timer.schedule(() -> {
+                if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                    early.incrementAndGet();
+                }
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertEquals(0, early.get());
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        AtomicInteger released = new AtomicInteger();
+        CountDownLatch last = new CountDownLatch(1);
+        for (int k = 0; k < 100; k++) {
+            Subscription subscription = timer.schedule(released::incrementAndGet, 5 + k % 20, TimeUnit.MILLISECONDS);
+            if (k % 2 == 0) {
+                subscription.cancel();
+            }
+        }
+        // cancelled after it is placed on the wheel
+        Subscription late = timer.schedule(released::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        Thread.sleep(10);
+        late.cancel();
+        timer.schedule(last::countDown, 40, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(last.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(50, released.get());
+    }
+
+    /**
+     * failures of subscribers and of the executor are passed to the subscribers, and the timer goes on
+     */
+    @Test
+    public void failures() throws InterruptedException {
+        HashedWheelTimer rejecting = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, command -> {
+            throw new RejectedExecutionException();
+        });
+        try {
+            CountDownLatch rejected = new CountDownLatch(1);
+            rejecting.schedule(new ScalarPermitSubscriber() {
+                @Override
+                public void release() {
+                }
+
+                @Override
+                public void postFailure(Throwable ex) {
+                    if (ex instanceof RejectedExecutionException) {
+                        rejected.countDown();
+                    }
+                }
+            }, 1, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(rejected.await(1, TimeUnit.SECONDS));
+        } finally {
+            rejecting.stop();
+        }
+        timer.schedule(new ScalarPermitSubscriber() {
+            @Override
+            public void release() {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void postFailure(Throwable ex) {
+                throw new IllegalStateException();
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+        CountDownLatch later = new CountDownLatch(1);
+        timer.schedule(later::countDown, 5, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(later.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void publisher() throws InterruptedException {
+        TimeSignalPublisher publisher = new TimeSignalPublisher(timer);
+        CountDownLatch latch = new CountDownLatch(1);
+        publisher.subscribe(latch::countDown, 10);
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,85 @@
+package org.df4j.core.util;
+
+import org.df4j.core.messagescalar.Sum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class NodePoolTest {
+
+    @Test
+    public void reuse() throws Exception {
+        NodePool<Sum> pool = new NodePool<>(Sum::new, 4);
+        Sum first = pool.acquire();
+        pool.release(first);
+        for (int k = 0; k < 10; k++) {
+            Sum node = pool.acquire();
+            Assert.assertSame(first, node);
+            node.start();
+            node.param1.post(k);
+            Assert.assertFalse(node.isDone());
+            node.param2.post(1);
+            Assert.assertEquals(Integer.valueOf(k + 1), node.get(1, TimeUnit.SECONDS));
+            Assert.assertTrue(pool.release(node));
+        }
+        Assert.assertEquals(1, pool.getCreatedCount());
+        Assert.assertEquals(10, pool.getReusedCount());
+    }
+
+    @Test
+    public void resetNotFinished() throws Exception {
+        NodePool<Sum> pool = new NodePool<>(Sum::new, 4);
+        Sum node = pool.acquire();
+        node.param1.post(2);
+        // not started yet, so can be reset
+        Assert.assertTrue(pool.release(node));
+        node = pool.acquire();
+        node.start();
+        node.param2.post(3);
+        try {
+            pool.release(node);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+        }
+        // the token posted before release was dropped
+        Assert.assertFalse(node.isDone());
+        node.param1.post(4);
+        Assert.assertEquals(Integer.valueOf(7), node.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void maxSize() {
+        NodePool<Sum> pool = new NodePool<>(Sum::new, 1);
+        Sum node1 = pool.acquire();
+        Sum node2 = pool.acquire();
+        Assert.assertTrue(pool.release(node1));
+        Assert.assertFalse(pool.release(node2));
+        Assert.assertEquals(1, pool.size());
+    }
+
+    /**
+     * the node runs on another thread, and is released as soon as its result is available
+     */
+    @Test
+    public void reuseWithExecutor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            NodePool<Sum> pool = new NodePool<>(() -> new Sum(executor), 1);
+            for (int k = 0; k < 10000; k++) {
+                Sum node = pool.acquire();
+                node.start();
+                node.param1.post(k);
+                node.param2.post(1);
+                Assert.assertEquals(Integer.valueOf(k + 1), node.get(1, TimeUnit.SECONDS));
+                Assert.assertTrue(node.isStopped());
+                pool.release(node);
+            }
+            Assert.assertEquals(1, pool.getCreatedCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
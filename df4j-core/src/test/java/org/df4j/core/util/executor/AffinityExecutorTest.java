@@ -0,0 +1,127 @@
+package org.df4j.core.util.executor;
+
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.df4j.core.tasknode.messagestream.StreamProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AffinityExecutorTest {
+    static final int MESSAGES = 1000;
+
+    static class Increment extends StreamProcessor<Integer, Integer> {
+        @Override
+        protected Integer process(Integer message) {
+            return message + 1;
+        }
+    }
+
+    static class Summator extends Actor1<Integer> {
+        long sum = 0;
+
+        @Override
+        protected void runAction(Integer message) {
+            sum += message;
+        }
+    }
+
+    private void runChain(AffinityExecutor executor) throws Exception {
+        Increment first = new Increment();
+        first.start(executor);
+        Increment second = new Increment();
+        second.start(executor);
+        first.subscribe(second);
+        Summator sink = new Summator();
+        sink.start(executor);
+        second.subscribe(sink);
+        for (int k = 0; k < MESSAGES; k++) {
+            first.post(k);
+        }
+        first.onComplete();
+        sink.asyncResult().get(2, TimeUnit.SECONDS);
+        Assert.assertEquals(MESSAGES * (MESSAGES - 1) / 2 + 2 * MESSAGES, sink.sum);
+    }
+
+    @Test
+    public void chainTest() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        runChain(new AffinityExecutor(pool));
+        runChain(new AffinityExecutor(pool, 3));
+        pool.shutdown();
+    }
+
+    /**
+     * a task which executes its successor, and so on
+     */
+    class Chain implements Runnable {
+        final AffinityExecutor executor;
+        final AtomicInteger nesting;
+        final CountDownLatch done;
+        final int remaining;
+
+        Chain(AffinityExecutor executor, int remaining, CountDownLatch done) {
+            this.executor = executor;
+            this.nesting = new AtomicInteger();
+            this.done = done;
+            this.remaining = remaining;
+        }
+
+        Chain(Chain prev) {
+            this.executor = prev.executor;
+            this.nesting = prev.nesting;
+            this.done = prev.done;
+            this.remaining = prev.remaining - 1;
+        }
+
+        @Override
+        public void run() {
+            Assert.assertTrue(Thread.currentThread() instanceof ForkJoinWorkerThread);
+            int current = nesting.incrementAndGet();
+            maxNestingSeen.accumulateAndGet(current, Math::max);
+            if (remaining > 0) {
+                executor.execute(new Chain(this));
+            }
+            nesting.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    final AtomicInteger maxNestingSeen = new AtomicInteger();
+
+    @Test
+    public void inlineDepthTest() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CountDownLatch done = new CountDownLatch(100);
+        // called from a non-worker thread, so the first task is submitted to the pool
+        new AffinityExecutor(pool, 3).execute(new Chain(new AffinityExecutor(pool, 3), 99, done));
+        Assert.assertTrue(done.await(2, TimeUnit.SECONDS));
+        // the first task and 3 nested ones
+        Assert.assertEquals(4, maxNestingSeen.get());
+        pool.shutdown();
+    }
+
+    /**
+     * an exception of a forked task reaches the handler of the pool
+     */
+    @Test
+    public void exceptionTest() throws Exception {
+        CountDownLatch reported = new CountDownLatch(1);
+        ForkJoinPool pool = new ForkJoinPool(2, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                (thread, e) -> {
+                    if (e instanceof IllegalStateException) {
+                        reported.countDown();
+                    }
+                }, false);
+        AffinityExecutor executor = new AffinityExecutor(pool);
+        executor.execute(() -> executor.execute(() -> {
+            throw new IllegalStateException();
+        }));
+        Assert.assertTrue(reported.await(2, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+}
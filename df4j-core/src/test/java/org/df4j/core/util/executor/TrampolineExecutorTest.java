@@ -0,0 +1,137 @@
+package org.df4j.core.util.executor;
+
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagestream.Actor1;
+import org.df4j.core.tasknode.messagestream.StreamProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class TrampolineExecutorTest {
+    static final int STAGES = 10000;
+    static final int MESSAGES = 100;
+
+    static class Increment extends StreamProcessor<Integer, Integer> {
+        @Override
+        protected Integer process(Integer message) {
+            return message + 1;
+        }
+    }
+
+    static class Summator extends Actor1<Integer> {
+        long sum = 0;
+
+        @Override
+        protected void runAction(Integer message) {
+            sum += message;
+        }
+    }
+
+    /**
+     * the pipeline is too deep to be run with {@link AsyncProc#directExec}
+     */
+    private long runPipeline() throws Exception {
+        Increment first = new Increment();
+        first.start(AsyncProc.trampolineExec);
+        Increment last = first;
+        for (int k = 1; k < STAGES; k++) {
+            Increment next = new Increment();
+            next.start(AsyncProc.trampolineExec);
+            last.subscribe(next);
+            last = next;
+        }
+        Summator sink = new Summator();
+        sink.start(AsyncProc.trampolineExec);
+        last.subscribe(sink);
+        for (int k = 0; k < MESSAGES; k++) {
+            first.post(k);
+        }
+        first.onComplete();
+        sink.asyncResult().get(5, TimeUnit.SECONDS);
+        return sink.sum;
+    }
+
+    @Test
+    public void deepPipelineTest() throws Exception {
+        Assert.assertEquals(MESSAGES * (MESSAGES - 1) / 2 + MESSAGES * STAGES, runPipeline());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        ArrayList<Thread> threads = new ArrayList<>();
+        long[] sums = new long[4];
+        Throwable[] errors = new Throwable[sums.length];
+        for (int t = 0; t < sums.length; t++) {
+            int index = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    sums[index] = runPipeline();
+                } catch (Throwable e) {
+                    errors[index] = e;
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (int t = 0; t < sums.length; t++) {
+            threads.get(t).join();
+            Assert.assertNull(errors[t]);
+            Assert.assertEquals(MESSAGES * (MESSAGES - 1) / 2 + MESSAGES * STAGES, sums[t]);
+        }
+    }
+
+    @Test
+    public void delegateTest() throws Exception {
+        ArrayList<Runnable> delegated = new ArrayList<>();
+        TrampolineExecutor executor = new TrampolineExecutor(2, delegated::add);
+        int[] count = new int[1];
+        executor.execute(() -> {
+            count[0]++;
+            executor.execute(() -> {
+                count[0]++;
+                executor.execute(() -> count[0]++);
+            });
+        });
+        Assert.assertEquals(2, count[0]);
+        Assert.assertEquals(1, delegated.size());
+        delegated.get(0).run();
+        Assert.assertEquals(3, count[0]);
+    }
+
+    /**
+     * nested tasks are queued beyond depth 1, and are run and their failures reported
+     * even if the outermost task fails
+     */
+    @Test
+    public void failuresTest() {
+        TrampolineExecutor executor = new TrampolineExecutor(1);
+        int[] runs = new int[1];
+        try {
+            executor.execute(() -> {
+                executor.execute(() -> {
+                    runs[0]++;
+                    throw new IllegalStateException("nested 1");
+                });
+                executor.execute(() -> runs[0]++);
+                throw new IllegalArgumentException("outer");
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(1, e.getSuppressed().length);
+        }
+        Assert.assertEquals(2, runs[0]);
+        try {
+            executor.execute(() -> executor.execute(() -> {
+                throw new IllegalStateException("nested 2");
+            }));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("nested 2", e.getMessage());
+        }
+        // nothing is left in the queue
+        executor.execute(() -> {});
+        Assert.assertEquals(2, runs[0]);
+    }
+}
@@ -0,0 +1,42 @@
+package org.df4j.core.util.executor;
+
+import org.df4j.core.tasknode.AsyncProc;
+import org.df4j.core.tasknode.messagescalar.AsyncFunction1;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class VirtualThreadExecutorTest {
+    static final int NODES = 1000;
+    static final long SLEEP_MILLIS = 200;
+
+    static class BlockingInc extends AsyncFunction1<Integer, Integer> {
+        @Override
+        protected Integer apply(Integer arg) throws InterruptedException {
+            Thread.sleep(SLEEP_MILLIS);
+            return arg + 1;
+        }
+    }
+
+    /**
+     * blocking actions run concurrently, with no pool to exhaust
+     */
+    @Test
+    public void blockingTest() throws Exception {
+        long start = System.currentTimeMillis();
+        ArrayList<BlockingInc> nodes = new ArrayList<>();
+        for (int k = 0; k < NODES; k++) {
+            BlockingInc node = new BlockingInc();
+            node.start(AsyncProc.virtualThreadExec);
+            node.post(k);
+            nodes.add(node);
+        }
+        for (int k = 0; k < NODES; k++) {
+            Assert.assertEquals(Integer.valueOf(k + 1), nodes.get(k).get(10, TimeUnit.SECONDS));
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertTrue("elapsed " + elapsed + " ms", elapsed < NODES * SLEEP_MILLIS / 10);
+    }
+}
@@ -16,7 +16,9 @@ import org.df4j.core.boundconnector.messagestream.StreamInput;
 import org.df4j.core.boundconnector.messagestream.MulticastStreamOutput;
 import org.df4j.core.tasknode.Action;
 import org.df4j.core.tasknode.AsyncAction;
+import org.df4j.core.util.HashedWheelTimer;
 import org.df4j.core.util.Logger;
+import org.df4j.nio2.util.ByteBufferPool;
 import org.reactivestreams.Subscriber;
 import org.reactivestreams.Subscription;
 
@@ -25,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
+import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -41,6 +44,12 @@ import java.util.function.Consumer;
  *
  * IO requests can be posted immediately, but will be executed
  * only after connection completes.
+ *
+ * Buffers can be taken from a {@link ByteBufferPool} with {@link #allocateBuffer}.
+ * A pooled buffer posted to the output of the reader or writer is retained for each subscriber,
+ * and each subscriber should {@link #releaseBuffer release} it when done, or pass it to the next processor.
+ * Buffers dropped by the connection itself, at the end of stream or after close, are released automatically.
+ * Buffers allocated and not yet released are counted in {@link #getBufferStats()}.
  */
 public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
     protected static final Logger LOG = Logger.getLogger(ServerConnection.class.getName());
@@ -56,6 +65,9 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
 
     public String name;
 
+    protected ByteBufferPool bufferPool;
+    protected final ByteBufferPool.Stats bufferStats = new ByteBufferPool.Stats();
+
     public ServerConnection(String name, Consumer<ServerConnection> backPort) {
         this.name = name;
         this.backPort = backPort;
@@ -68,6 +80,44 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
         this(name, null);
     }
 
+    /**
+     * @param bufferPool pool for {@link #allocateBuffer}; null to allocate heap buffers
+     */
+    public void setBufferPool(ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * @return counters of pooled buffers allocated by this connection
+     */
+    public ByteBufferPool.Stats getBufferStats() {
+        return bufferStats;
+    }
+
+    /**
+     * @param size minimal capacity
+     * @return a direct buffer from the pool, or a heap buffer if no pool is set
+     */
+    public ByteBuffer allocateBuffer(int size) {
+        if (bufferPool == null) {
+            return ByteBuffer.allocate(size);
+        }
+        return bufferPool.allocate(size, bufferStats);
+    }
+
+    /**
+     * drops a reference to a buffer; buffers not taken from the pool are ignored
+     */
+    public void releaseBuffer(ByteBuffer buffer) {
+        if (bufferPool != null) {
+            bufferPool.release(buffer);
+        }
+    }
+
     @Override
     public void onSubscribe(Subscription s) {
 
@@ -89,8 +139,8 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
 
     }
 
-    /** disallows subsequent posts of requests; already posted requests
-     * would be processed.
+    /** disallows subsequent posts of requests; already posted and subsequent requests
+     * are dropped, and their buffers released.
      */
     public synchronized void close() {
         AsynchronousSocketChannel locchannel;
@@ -142,20 +192,45 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
                 LOG.finest("conn "+ name+": input.isClosed()");
                 return;
             }
+            // the buffer is owned by this processor until the I/O completes
+            input.purge();
+            if (isClosed()) {
+                releaseBuffer(buffer);
+                this.start();
+                return;
+            }
             doIO(buffer);
         }
 
+        /**
+         * posts the buffer to the output, retaining a pooled buffer once per subscriber;
+         * a buffer nobody subscribed for is released
+         */
+        protected void postBuffer(ByteBuffer buffer) {
+            if (bufferPool != null) {
+                int subscribers = output.subscriptionCount();
+                if (subscribers == 0) {
+                    bufferPool.release(buffer);
+                    return;
+                }
+                bufferPool.retain(buffer, subscribers - 1);
+            }
+            output.post(buffer);
+        }
+
         // ------------- CompletionHandler backend
 
         // IO excange finished
         public void completed(Integer result, ByteBuffer buffer) {
             LOG.finest("conn "+ name+": read() completed "+result);
             if (result==-1) {
+                releaseBuffer(buffer);
                 output.complete();
                 close();
+                this.start(); // release queued buffers
             } else {
                 buffer.flip();
-                output.post(buffer);
+                postBuffer(buffer);
                 // start next IO excange only after this reading is finished,
                 // to keep buffer ordering
                 this.start();
@@ -164,8 +239,10 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
 
         public void failed(Throwable exc, ByteBuffer attach) {
             LOG.finest("conn "+ name+": read() failed "+exc);
+            releaseBuffer(attach);
             if (exc instanceof AsynchronousCloseException) {
                 close();
+                this.start(); // release queued buffers
             } else {
                 this.start(); // let subsequent requests fail
                 output.postFailure(exc);
@@ -194,16 +271,278 @@ public class ServerConnection implements Subscriber<AsynchronousSocketChannel> {
 
     }
     
+    /**
+     * A buffer is posted to the output only after all its bytes are written; partial writes are continued.
+     *
+     * In gathering mode, takes all the buffers queued at the input, up to {@link #MAX_GATHER},
+     * and writes them with a single gathering write.
+     * If the write is partial, it is repeated from the first unfinished buffer,
+     * and the buffers are posted to the output after all of them are written.
+     *
+     * In coalescing mode, small buffers are copied into one buffer of up to the coalescing size,
+     * taken from the connection's pool, and written at once.
+     * With a delay set, a buffer smaller than that size waits for the following ones
+     * at most for the delay, as Nagle's algorithm does in TCP.
+     */
     public class Writer extends BuffProcessor {
+        public static final int MAX_GATHER = 64;
+
+        private final GatheringHandler gatheringHandler = new GatheringHandler();
+        private volatile boolean gathering = false;
+        private volatile int coalesceSize = 0;
+        private volatile long coalesceDelayNanos = 0;
+        private volatile HashedWheelTimer coalesceTimer;
+        /** updated by one thread at a time, as the next write starts after the previous one completes */
+        private volatile long writeCount = 0;
+        private volatile long bufferCount = 0;
+
+        /**
+         * @return number of write operations started on the channel, including continuations of partial writes
+         */
+        public long getWriteCount() {
+            return writeCount;
+        }
+
+        /**
+         * @return number of buffers completely written
+         */
+        public long getBufferCount() {
+            return bufferCount;
+        }
+
+        public void setGathering(boolean gathering) {
+            this.gathering = gathering;
+        }
+
+        public boolean isGathering() {
+            return gathering;
+        }
+
+        /**
+         * @param size buffers smaller than this are coalesced, up to this size; 0 to turn coalescing off
+         * @param delay maximum time to wait for more buffers, 0 to write immediately what is queued
+         * @param unit time unit of the delay
+         * @param timer timer to count the delay
+         */
+        public void setCoalescing(int size, long delay, TimeUnit unit, HashedWheelTimer timer) {
+            if (size < 0 || delay < 0) {
+                throw new IllegalArgumentException();
+            }
+            this.coalesceTimer = timer;
+            this.coalesceDelayNanos = unit.toNanos(delay);
+            this.coalesceSize = size;
+        }
+
+        /**
+         * the same, with the timer shared by all the connections
+         */
+        public void setCoalescing(int size, long delay, TimeUnit unit) {
+            setCoalescing(size, delay, unit, delay == 0 ? null : CoalescingTimer.timer);
+        }
+
+        public void setCoalescing(int size) {
+            setCoalescing(size, 0, TimeUnit.MILLISECONDS, null);
+        }
 
         protected void doIO(ByteBuffer buffer) {
+            if (buffer.remaining() < coalesceSize) {
+                ArrayList<ByteBuffer> batch = new ArrayList<>();
+                batch.add(buffer);
+                coalesce(batch, buffer.remaining(), false);
+                return;
+            }
+            if (gathering) {
+                doGatheringIO(buffer);
+                return;
+            }
             LOG.finest("conn "+name+": write() started.");
+            write(channel, buffer, buffer, this);
+        }
+
+        private <A> void write(AsynchronousSocketChannel channel, ByteBuffer buffer, A attachment, CompletionHandler<Integer, A> handler) {
+            writeCount++;
             if (timeout>0) {
-                channel.write(buffer, timeout, TimeUnit.MILLISECONDS, buffer, this);
+                channel.write(buffer, timeout, TimeUnit.MILLISECONDS, attachment, handler);
             } else {
-                channel.write(buffer, buffer, this);
+                channel.write(buffer, attachment, handler);
+            }
+        }
+
+        @Override
+        protected void postBuffer(ByteBuffer buffer) {
+            bufferCount++;
+            super.postBuffer(buffer);
+        }
+
+        /**
+         * continues partial write
+         */
+        @Override
+        public void completed(Integer result, ByteBuffer buffer) {
+            if (buffer.hasRemaining()) {
+                AsynchronousSocketChannel channel = ServerConnection.this.channel;
+                if (channel == null) {
+                    failed(new AsynchronousCloseException(), buffer);
+                } else {
+                    write(channel, buffer, buffer, this);
+                }
+                return;
+            }
+            super.completed(result, buffer);
+        }
+
+        /**
+         * takes the following small buffers from the input, while they fit in the coalescing size
+         *
+         * @param batch buffers taken already
+         * @param bytes total size of the batch
+         * @param waited true if the batch has waited for the delay already
+         */
+        private void coalesce(ArrayList<ByteBuffer> batch, int bytes, boolean waited) {
+            int size = coalesceSize;
+            boolean full = false;
+            synchronized (input) {
+                while (batch.size() < MAX_GATHER) {
+                    ByteBuffer next = input.current();
+                    if (next == null) {
+                        break;
+                    }
+                    if (bytes + next.remaining() > size) {
+                        full = true;
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += next.remaining();
+                    input.purge();
+                }
+            }
+            long delay = coalesceDelayNanos;
+            HashedWheelTimer timer = coalesceTimer;
+            if (!waited && !full && bytes < size && batch.size() < MAX_GATHER && delay > 0 && timer != null) {
+                int waitedBytes = bytes;
+                timer.schedule(() -> coalesce(batch, waitedBytes, true), delay, TimeUnit.NANOSECONDS);
+                return;
+            }
+            AsynchronousSocketChannel channel = ServerConnection.this.channel;
+            if (channel == null) {
+                for (int k = 1; k < batch.size(); k++) {
+                    releaseBuffer(batch.get(k));
+                }
+                failed(new AsynchronousCloseException(), batch.get(0));
+                return;
+            }
+            if (batch.size() == 1) {
+                ByteBuffer buffer = batch.get(0);
+                write(channel, buffer, buffer, this);
+                return;
+            }
+            ByteBuffer coalesced = allocateBuffer(bytes);
+            for (ByteBuffer buffer: batch) {
+                coalesced.put(buffer);
+            }
+            coalesced.flip();
+            LOG.finest("conn "+name+": coalesced write() of "+batch.size()+" buffers started.");
+            write(channel, coalesced, coalesced, new CoalescingHandler(batch));
+        }
+
+        protected void doGatheringIO(ByteBuffer buffer) {
+            ArrayList<ByteBuffer> batch = new ArrayList<>();
+            batch.add(buffer);
+            synchronized (input) {
+                while (batch.size() < MAX_GATHER) {
+                    ByteBuffer next = input.current();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    input.purge();
+                }
+            }
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+            LOG.finest("conn "+name+": gathering write() of "+buffers.length+" buffers started.");
+            writeFrom(channel, buffers, 0);
+        }
+
+        private void writeFrom(AsynchronousSocketChannel channel, ByteBuffer[] buffers, int offset) {
+            writeCount++;
+            // timeout 0 means no timeout
+            channel.write(buffers, offset, buffers.length - offset, timeout, TimeUnit.MILLISECONDS, buffers, gatheringHandler);
+        }
+
+        /**
+         * writes the coalesced buffer, then releases it and posts the source buffers
+         */
+        class CoalescingHandler implements CompletionHandler<Integer, ByteBuffer> {
+            private final ArrayList<ByteBuffer> sources;
+
+            CoalescingHandler(ArrayList<ByteBuffer> sources) {
+                this.sources = sources;
+            }
+
+            @Override
+            public void completed(Integer result, ByteBuffer coalesced) {
+                if (coalesced.hasRemaining()) {
+                    AsynchronousSocketChannel channel = ServerConnection.this.channel;
+                    if (channel == null) {
+                        failed(new AsynchronousCloseException(), coalesced);
+                    } else {
+                        write(channel, coalesced, coalesced, this);
+                    }
+                    return;
+                }
+                releaseBuffer(coalesced);
+                for (ByteBuffer buffer: sources) {
+                    buffer.flip();
+                    postBuffer(buffer);
+                }
+                Writer.this.start();
+            }
+
+            @Override
+            public void failed(Throwable exc, ByteBuffer coalesced) {
+                releaseBuffer(coalesced);
+                for (int k = 1; k < sources.size(); k++) {
+                    releaseBuffer(sources.get(k));
+                }
+                Writer.this.failed(exc, sources.get(0));
+            }
+        }
+
+        class GatheringHandler implements CompletionHandler<Long, ByteBuffer[]> {
+
+            @Override
+            public void completed(Long result, ByteBuffer[] buffers) {
+                LOG.finest("conn "+ name+": gathering write() completed "+result);
+                for (int k = 0; k < buffers.length; k++) {
+                    if (buffers[k].hasRemaining()) {
+                        AsynchronousSocketChannel channel = ServerConnection.this.channel;
+                        if (channel == null) {
+                            failed(new AsynchronousCloseException(), buffers);
+                        } else {
+                            writeFrom(channel, buffers, k);
+                        }
+                        return;
+                    }
+                }
+                for (ByteBuffer buffer: buffers) {
+                    buffer.flip();
+                    postBuffer(buffer);
+                }
+                Writer.this.start();
+            }
+
+            @Override
+            public void failed(Throwable exc, ByteBuffer[] buffers) {
+                for (int k = 1; k < buffers.length; k++) {
+                    releaseBuffer(buffers[k]);
+                }
+                Writer.this.failed(exc, buffers[0]);
             }
         }
     }
 
+    /** created on first use */
+    private static class CoalescingTimer {
+        static final HashedWheelTimer timer = new HashedWheelTimer();
+    }
 }
@@ -0,0 +1,223 @@
+package org.df4j.nio2.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct byte buffers, so that socket I/O needs no copying between heap and native memory,
+ * and buffers are not left to the garbage collector.
+ *
+ * Buffers are cut from large direct slabs, in size classes of powers of 2 from minSize to maxSize.
+ * A requested size is rounded up to its class; larger buffers are allocated directly and not reused.
+ * Each buffer has a reference count, 1 after allocation; a buffer passed to several consumers
+ * is retained for each extra consumer, and each consumer releases it when done.
+ * The buffer returns to the pool when the count drops to 0.
+ *
+ * Buffers are identified by reference: release the same instance which was allocated, not its duplicate or slice.
+ */
+public class ByteBufferPool {
+    public static final int DEFAULT_MIN_SIZE = 512;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+    public static final int DEFAULT_SLAB_SIZE = 256 * 1024;
+
+    private final int minSize;
+    private final int maxSize;
+    private final int slabSize;
+    /** free chunks of each size class, guarded by this */
+    private final ArrayDeque<Chunk>[] freeLists;
+    /** all the buffers given out, guarded by this */
+    private final IdentityHashMap<ByteBuffer, Chunk> chunks = new IdentityHashMap<>();
+    private long slabBytes = 0;
+
+    /**
+     * @param minSize size of the smallest class, rounded up to a power of 2
+     * @param maxSize size of the largest class, rounded up to a power of 2
+     * @param slabSize size of a slab, cut into buffers of a single class
+     */
+    @SuppressWarnings("unchecked")
+    public ByteBufferPool(int minSize, int maxSize, int slabSize) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("0 < minSize <= maxSize required");
+        }
+        this.minSize = roundUp(minSize);
+        this.maxSize = roundUp(maxSize);
+        this.slabSize = slabSize;
+        int classCount = Integer.numberOfTrailingZeros(this.maxSize) - Integer.numberOfTrailingZeros(this.minSize) + 1;
+        freeLists = new ArrayDeque[classCount];
+        for (int k = 0; k < classCount; k++) {
+            freeLists[k] = new ArrayDeque<>();
+        }
+    }
+
+    public ByteBufferPool() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_SLAB_SIZE);
+    }
+
+    private static int roundUp(int size) {
+        return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * @param size minimal capacity of the buffer
+     * @param stats counters of the consumer, or null
+     * @return cleared direct buffer, with reference count 1
+     */
+    public ByteBuffer allocate(int size, Stats stats) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be > 0");
+        }
+        Chunk chunk;
+        if (size > maxSize) {
+            chunk = new Chunk(ByteBuffer.allocateDirect(size), -1);
+        } else {
+            chunk = null;
+        }
+        synchronized (this) {
+            if (chunk != null) {
+                chunks.put(chunk.buffer, chunk);
+            } else {
+                int sizeClass = Integer.numberOfTrailingZeros(Math.max(roundUp(size), minSize))
+                        - Integer.numberOfTrailingZeros(minSize);
+                chunk = freeLists[sizeClass].pollLast();
+                if (chunk == null) {
+                    chunk = carveSlab(sizeClass);
+                }
+            }
+            chunk.refCount = 1;
+            chunk.stats = stats;
+        }
+        if (stats != null) {
+            stats.allocated.incrementAndGet();
+        }
+        // through Buffer, to run on Java 8 when compiled by a later javac
+        ((Buffer) chunk.buffer).clear();
+        return chunk.buffer;
+    }
+
+    public ByteBuffer allocate(int size) {
+        return allocate(size, null);
+    }
+
+    /**
+     * allocates a new slab, and cuts it into buffers of the given class
+     *
+     * @return one of the buffers, the others go to the free list
+     */
+    private Chunk carveSlab(int sizeClass) {
+        int chunkSize = minSize << sizeClass;
+        int count = Math.max(slabSize / chunkSize, 1);
+        ByteBuffer slab = ByteBuffer.allocateDirect(chunkSize * count);
+        slabBytes += slab.capacity();
+        Chunk res = null;
+        for (int k = 0; k < count; k++) {
+            ((Buffer) slab).limit((k + 1) * chunkSize).position(k * chunkSize);
+            Chunk chunk = new Chunk(slab.slice(), sizeClass);
+            chunks.put(chunk.buffer, chunk);
+            if (res == null) {
+                res = chunk;
+            } else {
+                freeLists[sizeClass].add(chunk);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * adds references to the buffer, for additional consumers
+     *
+     * @param buffer buffer allocated by this pool; other buffers are ignored
+     * @param count number of additional references
+     */
+    public synchronized void retain(ByteBuffer buffer, int count) {
+        Chunk chunk = chunks.get(buffer);
+        if (chunk == null) {
+            return;
+        }
+        if (chunk.refCount <= 0) {
+            throw new IllegalStateException("buffer released already");
+        }
+        chunk.refCount += count;
+    }
+
+    /**
+     * drops a reference to the buffer, and returns it to the pool when no references remain
+     *
+     * @param buffer buffer allocated by this pool; other buffers are ignored
+     * @return true if the buffer is returned to the pool
+     */
+    public synchronized boolean release(ByteBuffer buffer) {
+        Chunk chunk = chunks.get(buffer);
+        if (chunk == null) {
+            return false;
+        }
+        if (chunk.refCount <= 0) {
+            throw new IllegalStateException("buffer released already");
+        }
+        if (--chunk.refCount > 0) {
+            return false;
+        }
+        if (chunk.stats != null) {
+            chunk.stats.released.incrementAndGet();
+            chunk.stats = null;
+        }
+        if (chunk.sizeClass < 0) {
+            chunks.remove(buffer);
+        } else {
+            freeLists[chunk.sizeClass].addLast(chunk);
+        }
+        return true;
+    }
+
+    /**
+     * @param buffer a buffer
+     * @return true if the buffer was allocated by this pool
+     */
+    public synchronized boolean isPooled(ByteBuffer buffer) {
+        return chunks.containsKey(buffer);
+    }
+
+    /**
+     * @return total size of allocated slabs, in bytes
+     */
+    public synchronized long getSlabBytes() {
+        return slabBytes;
+    }
+
+    private static class Chunk {
+        final ByteBuffer buffer;
+        /** -1 for an unpooled buffer */
+        final int sizeClass;
+        /** guarded by the pool */
+        int refCount = 0;
+        Stats stats;
+
+        Chunk(ByteBuffer buffer, int sizeClass) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    /**
+     * counters of buffers taken by a consumer, e.g. a connection;
+     * buffers allocated and not released after the consumer is closed are leaked
+     */
+    public static class Stats {
+        final AtomicLong allocated = new AtomicLong();
+        final AtomicLong released = new AtomicLong();
+
+        public long getAllocated() {
+            return allocated.get();
+        }
+
+        public long getReleased() {
+            return released.get();
+        }
+
+        public long getOutstanding() {
+            return allocated.get() - released.get();
+        }
+    }
+}
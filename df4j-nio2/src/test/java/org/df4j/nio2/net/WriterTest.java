@@ -0,0 +1,191 @@
+package org.df4j.nio2.net;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class WriterTest {
+
+    static final int COUNT = 1000;
+    static final int SIZE = 100;
+
+    /**
+     * each buffer is written with a separate write
+     */
+    @Test
+    public void plainTest() throws Exception {
+        ServerConnection.Writer writer = checkSmallBuffers(w -> {});
+        Assert.assertEquals(COUNT, writer.getBufferCount());
+        Assert.assertTrue(writer.getWriteCount() >= COUNT);
+    }
+
+    @Test
+    public void gatheringTest() throws Exception {
+        ServerConnection.Writer writer = checkSmallBuffers(w -> w.setGathering(true));
+        Assert.assertEquals(COUNT, writer.getBufferCount());
+        // up to MAX_GATHER buffers per write, and maybe a few continuations
+        long writes = writer.getWriteCount();
+        Assert.assertTrue("writes: " + writes, writes >= (COUNT + ServerConnection.Writer.MAX_GATHER - 1) / ServerConnection.Writer.MAX_GATHER);
+        Assert.assertTrue("writes: " + writes, writes <= COUNT / 8);
+    }
+
+    @Test
+    public void coalescingTest() throws Exception {
+        ServerConnection.Writer writer = checkSmallBuffers(w -> w.setCoalescing(1024));
+        Assert.assertEquals(COUNT, writer.getBufferCount());
+        // up to 10 buffers of 100 bytes per write
+        long writes = writer.getWriteCount();
+        Assert.assertTrue("writes: " + writes, writes >= COUNT / 10);
+        Assert.assertTrue("writes: " + writes, writes <= COUNT / 4);
+    }
+
+    /**
+     * many small buffers, posted before the connection completes, arrive in order
+     *
+     * @return the writer after all the buffers are written
+     */
+    private ServerConnection.Writer checkSmallBuffers(Consumer<ServerConnection.Writer> setMode) throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            ClientConnection conn = new ClientConnection("Client", new InetSocketAddress("localhost", server.getLocalPort()));
+            setMode.accept(conn.writer);
+            CountDownLatch written = new CountDownLatch(COUNT);
+            conn.writer.output.subscribe(new Counter(written));
+            for (int k = 0; k < COUNT; k++) {
+                conn.writer.input.post(filled(k, SIZE));
+            }
+            try (Socket socket = server.accept()) {
+                InputStream in = socket.getInputStream();
+                for (int k = 0; k < COUNT; k++) {
+                    for (int j = 0; j < SIZE; j++) {
+                        Assert.assertEquals((byte) k, (byte) read(in));
+                    }
+                }
+                Assert.assertTrue(written.await(2, TimeUnit.SECONDS));
+            }
+            conn.close();
+            return conn.writer;
+        }
+    }
+
+    /**
+     * buffers posted one by one, faster than the delay, are written together
+     */
+    @Test
+    public void delayedCoalescingTest() throws Exception {
+        int count = 10;
+        try (ServerSocket server = new ServerSocket(0)) {
+            ClientConnection conn = new ClientConnection("Client", new InetSocketAddress("localhost", server.getLocalPort()));
+            conn.writer.setCoalescing(1024, 200, TimeUnit.MILLISECONDS);
+            CountDownLatch written = new CountDownLatch(count);
+            conn.writer.output.subscribe(new Counter(written));
+            try (Socket socket = server.accept()) {
+                for (int k = 0; k < count; k++) {
+                    conn.writer.input.post(filled(k, SIZE));
+                    Thread.sleep(1);
+                }
+                InputStream in = socket.getInputStream();
+                for (int k = 0; k < count; k++) {
+                    for (int j = 0; j < SIZE; j++) {
+                        Assert.assertEquals((byte) k, (byte) read(in));
+                    }
+                }
+                Assert.assertTrue(written.await(2, TimeUnit.SECONDS));
+            }
+            conn.close();
+            Assert.assertEquals(count, conn.writer.getBufferCount());
+            long writes = conn.writer.getWriteCount();
+            Assert.assertTrue("writes: " + writes, writes <= 2);
+        }
+    }
+
+    static ByteBuffer filled(int value, int size) {
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        while (buf.hasRemaining()) {
+            buf.put((byte) value);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * a buffer larger than the socket buffers is written partially, and the rest is written after the peer reads
+     */
+    @Test
+    public void partialWriteTest() throws Exception {
+        int size = 8 * 1024 * 1024;
+        try (ServerSocket server = new ServerSocket()) {
+            // a small receive window makes the first write short
+            server.setReceiveBufferSize(4096);
+            server.bind(new InetSocketAddress("localhost", 0));
+            ClientConnection conn = new ClientConnection("Client", new InetSocketAddress("localhost", server.getLocalPort()));
+            CountDownLatch written = new CountDownLatch(1);
+            conn.writer.output.subscribe(new Counter(written));
+            ByteBuffer buf = ByteBuffer.allocate(size);
+            for (int k = 0; k < size; k++) {
+                buf.put((byte) k);
+            }
+            buf.flip();
+            conn.writer.input.post(buf);
+            try (Socket socket = server.accept()) {
+                Assert.assertFalse(written.await(100, TimeUnit.MILLISECONDS));
+                byte[] received = new byte[size];
+                new DataInputStream(socket.getInputStream()).readFully(received);
+                for (int k = 0; k < size; k++) {
+                    Assert.assertEquals((byte) k, received[k]);
+                }
+                Assert.assertTrue(written.await(2, TimeUnit.SECONDS));
+                Assert.assertEquals(0, buf.position());
+                Assert.assertEquals(size, buf.limit());
+            }
+            conn.close();
+            Assert.assertEquals(1, conn.writer.getBufferCount());
+            long writes = conn.writer.getWriteCount();
+            Assert.assertTrue("writes: " + writes, writes > 1);
+        }
+    }
+
+    static int read(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new IOException("unexpected end of stream");
+        }
+        return b;
+    }
+
+    static class Counter implements Subscriber<ByteBuffer> {
+        final CountDownLatch latch;
+
+        Counter(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+        }
+
+        @Override
+        public void onNext(ByteBuffer buffer) {
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -12,7 +12,8 @@ public class EchoServer extends ServerConnection {
         reader.output.subscribe(writer.input);
         // directs all used buffers after writing to the reader
         writer.output.subscribe(reader.input);
-        Utils.injectBuffers(2, 128, reader);
+        setBufferPool(Utils.bufferPool);
+        Utils.injectBuffers(2, 128, this);
         LOG.config(getClass().getName()+" created");
     }
 }
@@ -1,12 +1,14 @@
 package org.df4j.nio2.net.echo;
 
 import org.df4j.nio2.net.ServerConnection;
+import org.df4j.nio2.util.ByteBufferPool;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 public class Utils {
     static final Charset charset = Charset.forName("UTF-16");
+    static final ByteBufferPool bufferPool = new ByteBufferPool();
 
     public static ByteBuffer toByteBuf(String message) {
         return ByteBuffer.wrap(message.getBytes(charset));
@@ -17,10 +19,10 @@ public class Utils {
     }
 
 
-    public static void injectBuffers(int count, int bufLen, ServerConnection.Reader reader) {
+    public static void injectBuffers(int count, int bufLen, ServerConnection conn) {
         for (int k=0; k<count; k++) {
-            ByteBuffer buf=ByteBuffer.allocate(bufLen);
-            reader.input.post(buf);
+            ByteBuffer buf=conn.allocateBuffer(bufLen);
+            conn.reader.input.post(buf);
         }
     }
 
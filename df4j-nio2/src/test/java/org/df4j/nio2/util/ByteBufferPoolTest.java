@@ -0,0 +1,78 @@
+package org.df4j.nio2.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void sizeClassTest() {
+        ByteBufferPool pool = new ByteBufferPool(512, 4096, 16 * 1024);
+        ByteBuffer small = pool.allocate(1);
+        Assert.assertTrue(small.isDirect());
+        Assert.assertEquals(512, small.capacity());
+        Assert.assertEquals(1024, pool.allocate(513).capacity());
+        Assert.assertEquals(4096, pool.allocate(4096).capacity());
+        Assert.assertEquals(3 * 16 * 1024, pool.getSlabBytes());
+        // larger than the biggest class: allocated exactly, not from a slab
+        ByteBuffer large = pool.allocate(5000);
+        Assert.assertEquals(5000, large.capacity());
+        Assert.assertEquals(3 * 16 * 1024, pool.getSlabBytes());
+    }
+
+    @Test
+    public void reuseTest() {
+        ByteBufferPool pool = new ByteBufferPool();
+        ByteBuffer buffer = pool.allocate(100);
+        buffer.put((byte) 1);
+        Assert.assertTrue(pool.release(buffer));
+        ByteBuffer again = pool.allocate(200);
+        Assert.assertSame(buffer, again);
+        Assert.assertEquals(0, again.position());
+        Assert.assertEquals(again.capacity(), again.limit());
+    }
+
+    @Test
+    public void refCountTest() {
+        ByteBufferPool pool = new ByteBufferPool();
+        ByteBuffer buffer = pool.allocate(100);
+        pool.retain(buffer, 2);
+        Assert.assertFalse(pool.release(buffer));
+        Assert.assertFalse(pool.release(buffer));
+        Assert.assertTrue(pool.release(buffer));
+        try {
+            pool.release(buffer);
+            Assert.fail("double release not detected");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void foreignBufferTest() {
+        ByteBufferPool pool = new ByteBufferPool();
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        Assert.assertFalse(pool.isPooled(buffer));
+        pool.retain(buffer, 1);
+        Assert.assertFalse(pool.release(buffer));
+    }
+
+    @Test
+    public void statsTest() {
+        ByteBufferPool pool = new ByteBufferPool();
+        ByteBufferPool.Stats stats1 = new ByteBufferPool.Stats();
+        ByteBufferPool.Stats stats2 = new ByteBufferPool.Stats();
+        ByteBuffer b1 = pool.allocate(100, stats1);
+        ByteBuffer b2 = pool.allocate(100, stats1);
+        ByteBuffer b3 = pool.allocate(100_000, stats2);
+        pool.release(b1);
+        pool.release(b3);
+        Assert.assertEquals(2, stats1.getAllocated());
+        Assert.assertEquals(1, stats1.getOutstanding());
+        Assert.assertEquals(0, stats2.getOutstanding());
+        Assert.assertFalse(pool.isPooled(b3));
+        pool.release(b2);
+        Assert.assertEquals(0, stats1.getOutstanding());
+    }
+}
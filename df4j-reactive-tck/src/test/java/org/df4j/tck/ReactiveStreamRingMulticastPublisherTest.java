@@ -0,0 +1,56 @@
+package org.df4j.tck;
+
+
+import org.df4j.core.reactivestream.RingMulticastSource;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ForkJoinPool;
+
+public class ReactiveStreamRingMulticastPublisherTest extends PublisherVerification<Long> {
+    static final  int defaultTimeout = 400;
+    /**
+     * publishers of the other test classes, created with Long.MAX_VALUE elements, may go on posting
+     * to the common pool after their tests; a separate pool keeps them from starving this test
+     */
+    static final ForkJoinPool executor = new ForkJoinPool();
+    private final TestEnvironment env;
+
+    public ReactiveStreamRingMulticastPublisherTest() throws NoSuchFieldException, IllegalAccessException {
+        super(new TestEnvironment(defaultTimeout));
+
+        Field env = PublisherVerification.class.getDeclaredField("env");
+        env.setAccessible(true);
+        this.env = (TestEnvironment) env.get(this);
+    }
+
+    @Override
+    public Publisher<Long> createPublisher(long elements) {
+        RingMulticastSource flowPublisher = new RingMulticastSource(elements);
+        flowPublisher.start(executor);
+        return flowPublisher;
+    }
+
+    @Override
+    public Publisher<Long> createFailedPublisher() {
+        Publisher<Long> flowPublisher = new FailedRingMulticastSource();
+        return flowPublisher;
+    }
+
+    static class FailedRingMulticastSource extends RingMulticastSource {
+        @Override
+        public void subscribe(Subscriber<? super Long> subscriber) {
+            super.subscribe(subscriber);
+            subscriber.onError(new RuntimeException());
+        }
+
+        @Override
+        protected void runAction() {
+            pub.postFailure(new RuntimeException());
+        }
+    }
+
+}